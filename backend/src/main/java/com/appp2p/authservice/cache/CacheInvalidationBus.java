@@ -0,0 +1,196 @@
+package com.appp2p.authservice.cache;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Báo cho các replica khác xóa cache cục bộ khi dữ liệu thay đổi.
+ * Tín hiệu được ghi vào một capped collection và mỗi node đọc bằng tailable cursor, nên không cần thêm hạ tầng
+ * (Redis, message broker) và chạy được cả với MongoDB standalone.
+ * Khi mất kết nối, mọi listener nhận key null, nghĩa là phải xóa toàn bộ cache vì có thể đã lỡ tín hiệu.
+ */
+@Component
+public class CacheInvalidationBus {
+    
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    
+    private static final String COLLECTION = "cache_invalidations";
+    
+    private static final long RETRY_DELAY_MS = 5000;
+    private static final long REOPEN_DELAY_MS = 1000;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.cache.invalidation.capped-size:1048576}")
+    private long cappedSize;
+    
+    private final String nodeId = new ObjectId().toHexString();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread listenerThread;
+    
+    /**
+     * Đăng ký nhận tín hiệu của một kênh. Tín hiệu do chính node này gửi không được gửi lại cho nó.
+     */
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+    
+    public void publish(String channel, String key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertOne(
+                new Document("channel", channel)
+                    .append("key", key)
+                    .append("node", nodeId)
+                    .append("at", new Date())
+            );
+        } catch (Exception e) {
+            // Other nodes fall back to their cache TTL
+            log.warn("Không thể gửi tín hiệu xóa cache {}:{}: {}", channel, key, e.getMessage());
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+    
+    private void listen() {
+        // Position in the collection's insertion order. Signal ids carry the publisher's clock, which may be
+        // behind this node's, so they are only ever compared for equality, never with gt
+        ObjectId lastSeen = null;
+        while (running) {
+            try {
+                ensureCollection();
+                MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+                if (lastSeen == null) {
+                    // Only signals written after this node started matter; older ones predate its caches
+                    lastSeen = newestId(collection);
+                }
+                // On (re)open the cursor starts at the oldest signal; skip up to and including lastSeen
+                boolean caughtUp = lastSeen == null;
+                try (MongoCursor<Document> cursor = collection.find()
+                        .cursorType(CursorType.TailableAwait)
+                        .maxAwaitTime(1, TimeUnit.SECONDS)
+                        .cursor()) {
+                    while (running) {
+                        Document signal = cursor.tryNext();
+                        if (signal == null) {
+                            if (!caughtUp) {
+                                // lastSeen was overwritten by the capped collection wrapping: signals may be lost
+                                listeners.keySet().forEach(channel -> dispatch(channel, null));
+                                caughtUp = true;
+                            }
+                            if (cursor.getServerCursor() == null) {
+                                Thread.sleep(REOPEN_DELAY_MS);
+                                break;
+                            }
+                            continue;
+                        }
+                        ObjectId id = signal.getObjectId("_id");
+                        if (!caughtUp) {
+                            caughtUp = id.equals(lastSeen);
+                            continue;
+                        }
+                        lastSeen = id;
+                        if (!nodeId.equals(signal.getString("node"))) {
+                            dispatch(signal.getString("channel"), signal.getString("key"));
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Mất kết nối kênh xóa cache, thử lại sau {} ms: {}", RETRY_DELAY_MS, e.getMessage());
+                listeners.keySet().forEach(channel -> dispatch(channel, null));
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Tín hiệu được ghi sau cùng, theo thứ tự ghi ($natural) chứ không theo _id
+     */
+    private static ObjectId newestId(MongoCollection<Document> collection) {
+        Document newest = collection.find()
+            .sort(new Document("$natural", -1))
+            .projection(new Document("_id", 1))
+            .limit(1)
+            .first();
+        return newest != null ? newest.getObjectId("_id") : null;
+    }
+    
+    private void ensureCollection() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedSize));
+            } catch (Exception e) {
+                // Another node created it first
+            }
+        }
+        if (mongoTemplate.getCollection(COLLECTION).estimatedDocumentCount() == 0) {
+            // A tailable cursor on an empty capped collection closes immediately
+            publish("_", null);
+        }
+    }
+    
+    private void dispatch(String channel, String key) {
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(key);
+            } catch (Exception e) {
+                log.warn("Lỗi khi xử lý tín hiệu xóa cache {}: {}", channel, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.appp2p.authservice.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.appp2p.authservice.dto.CacheStatsResponse;
+import com.appp2p.authservice.dto.FileUploadResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache trong bộ nhớ cho danh sách file của từng user (/files/my-files...).
+ * Mỗi user là một entry chứa các danh sách theo loại file, nên một lần ghi chỉ cần xóa đúng một entry.
+ * Bị giới hạn theo tổng số file trong mọi danh sách (không phải số user) và TTL; các replica khác được báo
+ * qua CacheInvalidationBus.
+ */
+@Component
+public class FileListingCache {
+    
+    public static final String NAME = "file-listings";
+    
+    // Key for the listing without a type filter
+    private static final String ALL_TYPES = "";
+    
+    private final Cache<String, Listings> cache;
+    private final CacheInvalidationBus invalidationBus;
+    
+    // Counted per listing; Caffeine's own stats only see the per-user entries
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public FileListingCache(CacheInvalidationBus invalidationBus,
+                            @Value("${app.cache.file-listings.max-files:100000}") long maxFiles,
+                            @Value("${app.cache.file-listings.ttl:300000}") long ttlMillis) {
+        this.invalidationBus = invalidationBus;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxFiles)
+            .weigher((String userEmail, Listings listings) -> listings.weight())
+            .expireAfterWrite(Duration.ofMillis(ttlMillis))
+            .recordStats()
+            .build();
+        invalidationBus.subscribe(NAME, userEmail -> {
+            if (userEmail == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidate(userEmail);
+            }
+        });
+    }
+    
+    public List<FileUploadResponse> get(String userEmail, String fileType, Supplier<List<FileUploadResponse>> loader) {
+        Listings listings = cache.get(userEmail, email -> new Listings(Map.of()));
+        String key = fileType != null ? fileType : ALL_TYPES;
+        List<FileUploadResponse> files = listings.byType().get(key);
+        if (files != null) {
+            hits.increment();
+            return files;
+        }
+        misses.increment();
+        List<FileUploadResponse> loaded = List.copyOf(loader.get());
+        // Replacing the entry lets the weigher see the new list. A load racing with invalidate() finds
+        // another entry (or none) and is not cached, so it never resurfaces.
+        cache.asMap().computeIfPresent(userEmail,
+            (email, current) -> current == listings ? current.with(key, loaded) : current);
+        return loaded;
+    }
+    
+    /**
+     * Gọi sau khi danh sách file của user đã thay đổi trong MongoDB.
+     */
+    public void invalidate(String userEmail) {
+        cache.invalidate(userEmail);
+        invalidationBus.publish(NAME, userEmail);
+    }
+    
+    public CacheStatsResponse getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new CacheStatsResponse(NAME, cache.estimatedSize(), hitCount, missCount,
+            requests == 0 ? 1.0 : (double) hitCount / requests, cache.stats().evictionCount());
+    }
+    
+    // Immutable, so the weight taken when the entry is written stays true
+    private record Listings(Map<String, List<FileUploadResponse>> byType) {
+        
+        Listings with(String fileType, List<FileUploadResponse> files) {
+            Map<String, List<FileUploadResponse>> copy = new HashMap<>(byType);
+            copy.put(fileType, files);
+            return new Listings(Map.copyOf(copy));
+        }
+        
+        int weight() {
+            // At least 1, so users with only empty listings still count
+            return 1 + byType.values().stream().mapToInt(List::size).sum();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.appp2p.authservice.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.appp2p.authservice.dto.CacheStatsResponse;
+import com.appp2p.authservice.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache trong bộ nhớ cho User theo email, đặt trước UserDetailsServiceImpl để đăng nhập và xác thực token
+ * không phải đọc collection users mỗi lần. Mọi thay đổi mật khẩu, trạng thái hay quyền phải gọi invalidate().
+ */
+@Component
+public class UserDetailsCache {
+    
+    public static final String NAME = "user-details";
+    
+    private final Cache<String, User> cache;
+    private final CacheInvalidationBus invalidationBus;
+    
+    public UserDetailsCache(CacheInvalidationBus invalidationBus,
+                            @Value("${app.cache.user-details.max-users:10000}") long maxUsers,
+                            @Value("${app.cache.user-details.ttl:60000}") long ttlMillis) {
+        this.invalidationBus = invalidationBus;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(Duration.ofMillis(ttlMillis))
+            .recordStats()
+            .build();
+        invalidationBus.subscribe(NAME, email -> {
+            if (email == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidate(email);
+            }
+        });
+    }
+    
+    /**
+     * Loader trả về null (không có user) thì không được cache.
+     */
+    public User get(String email, Function<String, User> loader) {
+        // invalidate() waits for an in-flight load of the same key, so a stale load never survives it
+        return cache.get(email, loader);
+    }
+    
+    /**
+     * Gọi sau khi document của user đã thay đổi trong MongoDB.
+     */
+    public void invalidate(String email) {
+        cache.invalidate(email);
+        invalidationBus.publish(NAME, email);
+    }
+    
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.of(NAME, cache.stats(), cache.estimatedSize());
+    }
+}
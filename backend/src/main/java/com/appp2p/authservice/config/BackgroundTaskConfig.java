@@ -0,0 +1,32 @@
+package com.appp2p.authservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class BackgroundTaskConfig {
+    
+    @Value("${app.background.threads:2}")
+    private int backgroundThreads;
+    
+    @Value("${app.background.shutdown-wait:30}")
+    private int shutdownWaitSeconds;
+    
+    /**
+     * Pool chung cho việc nền chạy lâu (backfill lúc khởi động, quét blob mồ côi). Khi tắt ứng dụng,
+     * việc đang chạy được chờ tối đa shutdown-wait giây; các job đều dừng/tiếp tục được ở lần chạy sau.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor backgroundTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(backgroundThreads);
+        executor.setMaxPoolSize(backgroundThreads);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownWaitSeconds);
+        executor.setThreadNamePrefix("background-");
+        return executor;
+    }
+}
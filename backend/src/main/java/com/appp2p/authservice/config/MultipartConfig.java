@@ -0,0 +1,55 @@
+package com.appp2p.authservice.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MultipartConfig {
+    
+    // Path (relative to the context path) whose body is parsed by MultipartStreamReader instead of the container
+    public static final String STREAMING_UPLOAD_PATH = "/files/upload/stream";
+    
+    @Value("${app.upload.batch.threads:4}")
+    private int batchUploadThreads;
+    
+    @Value("${app.upload.batch.queue-capacity:1000}")
+    private int batchUploadQueueCapacity;
+    
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                // Tomcat spools every part to a temp file once getParts() runs, so skip it for the streaming endpoint
+                return !isStreamingUpload(request) && super.isMultipart(request);
+            }
+        };
+    }
+    
+    /**
+     * Pool ghi song song các file của một batch upload vào storage. Khi hàng đợi đầy,
+     * thread của request tự ghi file đó, nên số lượng việc đang chờ luôn có giới hạn.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor batchUploadTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchUploadThreads);
+        executor.setMaxPoolSize(batchUploadThreads);
+        executor.setQueueCapacity(batchUploadQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("batch-upload-");
+        return executor;
+    }
+    
+    public static boolean isStreamingUpload(HttpServletRequest request) {
+        return request.getRequestURI().equals(request.getContextPath() + STREAMING_UPLOAD_PATH);
+    }
+}
@@ -1,10 +1,15 @@
 package com.appp2p.authservice.config;
 
 import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import jakarta.servlet.DispatcherType;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -12,7 +17,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,6 +24,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.appp2p.authservice.security.BoundedPasswordEncoder;
 import com.appp2p.authservice.security.JwtAuthenticationFilter;
 import com.appp2p.authservice.service.UserDetailsServiceImpl;
 
@@ -34,9 +39,56 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+    
+    @Value("${app.security.bcrypt.threads:2}")
+    private int bcryptThreads;
+    
+    @Value("${app.security.bcrypt.queue-capacity:50}")
+    private int bcryptQueueCapacity;
+    
+    @Value("${app.security.bcrypt.timeout:5000}")
+    private long bcryptTimeoutMillis;
+    
+    @Value("${app.users.import.threads:2}")
+    private int userImportThreads;
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(bcryptStrength, passwordHashingTaskExecutor(), bcryptTimeoutMillis);
+    }
+    
+    /**
+     * Pool riêng cho BCrypt, để đăng nhập/đăng ký hàng loạt không chiếm CPU và thread của việc tải file.
+     * Hàng đợi đầy thì từ chối ngay (503), không chạy trên thread của request.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bcryptThreads);
+        executor.setMaxPoolSize(bcryptThreads);
+        executor.setQueueCapacity(bcryptQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("password-hash-");
+        return executor;
+    }
+    
+    /**
+     * Pool băm mật khẩu cho import hàng loạt, tách khỏi pool của đăng nhập. Hàng đợi đầy thì thread gọi
+     * tự băm, nên import chậm lại chứ không bị từ chối.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor userImportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(userImportThreads);
+        executor.setMaxPoolSize(userImportThreads);
+        executor.setQueueCapacity(userImportThreads * 4);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("user-import-");
+        return executor;
     }
     
     @Bean
@@ -44,6 +96,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hashes on login when app.security.bcrypt.strength changed
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -58,6 +112,8 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Async dispatches only finish responses (e.g. file streaming) that were already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/public/**").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
@@ -67,6 +123,7 @@ public class SecurityConfig {
                 .requestMatchers("/webjars/**", "/api/webjars/**").permitAll()
                 .requestMatchers("/swagger-ui.html", "/api/swagger-ui.html").permitAll()
                 .requestMatchers("/swagger-ui/index.html", "/api/swagger-ui/index.html").permitAll()
+                .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/files/**").authenticated()
                 .anyRequest().authenticated()
             )
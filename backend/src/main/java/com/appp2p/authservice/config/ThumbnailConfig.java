@@ -0,0 +1,35 @@
+package com.appp2p.authservice.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ThumbnailConfig {
+    
+    @Value("${app.thumbnails.threads:2}")
+    private int thumbnailThreads;
+    
+    @Value("${app.thumbnails.queue-capacity:500}")
+    private int thumbnailQueueCapacity;
+    
+    /**
+     * Pool riêng, nhỏ và có giới hạn cho việc tạo thumbnail. Khi hàng đợi đầy, việc bị từ chối
+     * (không chạy trên thread của request) và được job quét lại sau.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(thumbnailThreads);
+        executor.setMaxPoolSize(thumbnailThreads);
+        executor.setQueueCapacity(thumbnailQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("thumbnail-");
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.appp2p.authservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    @Value("${app.streaming.max-threads:200}")
+    private int streamingMaxThreads;
+    
+    @Value("${app.streaming.queue-capacity:100}")
+    private int streamingQueueCapacity;
+    
+    /**
+     * Executor chạy các StreamingResponseBody (download, preview...). Executor mặc định của Spring Boot
+     * chỉ có 8 thread, sẽ giới hạn số lượt download đồng thời.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamingTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streamingMaxThreads);
+        executor.setMaxPoolSize(streamingMaxThreads);
+        executor.setQueueCapacity(streamingQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("file-stream-");
+        return executor;
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor());
+    }
+}
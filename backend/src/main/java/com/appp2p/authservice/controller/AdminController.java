@@ -0,0 +1,247 @@
+package com.appp2p.authservice.controller;
+
+import com.appp2p.authservice.cache.FileListingCache;
+import com.appp2p.authservice.cache.UserDetailsCache;
+import com.appp2p.authservice.dto.ApiResponse;
+import com.appp2p.authservice.dto.CacheStatsResponse;
+import com.appp2p.authservice.dto.OrphanReconcileResponse;
+import com.appp2p.authservice.dto.RateLimitStatsResponse;
+import com.appp2p.authservice.dto.StorageMigrationResponse;
+import com.appp2p.authservice.dto.StorageUsageResponse;
+import com.appp2p.authservice.dto.UserImportResponse;
+import com.appp2p.authservice.security.AuthRateLimiter;
+import com.appp2p.authservice.service.BlobMigrationService;
+import com.appp2p.authservice.service.OrphanReconcileService;
+import com.appp2p.authservice.service.StorageUsageService;
+import com.appp2p.authservice.service.UserAccountService;
+import com.appp2p.authservice.service.UserImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Administration", description = "API endpoints for administrators")
+@SecurityRequirement(name = "Bearer Authentication")
+public class AdminController {
+    
+    @Autowired
+    private BlobMigrationService blobMigrationService;
+    
+    @Autowired
+    private FileListingCache fileListingCache;
+    
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
+    @Autowired
+    private StorageUsageService storageUsageService;
+    
+    @Autowired
+    private OrphanReconcileService orphanReconcileService;
+    
+    @Autowired
+    private UserAccountService userAccountService;
+    
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+    
+    @Autowired
+    private UserImportService userImportService;
+    
+    @Operation(summary = "Cache statistics", description = "Hit, miss and eviction counts of the in-process caches on this node")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Statistics retrieved",
+                content = @Content(schema = @Schema(implementation = CacheStatsResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<List<CacheStatsResponse>>> getCacheStats() {
+        return ResponseEntity.ok(
+            ApiResponse.success("Lấy thống kê cache thành công", List.of(fileListingCache.getStats(), userDetailsCache.getStats()))
+        );
+    }
+    
+    @Operation(summary = "Rate limit statistics", description = "Allowed and rejected auth requests per endpoint on this node, and live token buckets")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Statistics retrieved",
+                content = @Content(schema = @Schema(implementation = RateLimitStatsResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @GetMapping("/rate-limits/stats")
+    public ResponseEntity<ApiResponse<List<RateLimitStatsResponse>>> getRateLimitStats() {
+        return ResponseEntity.ok(
+            ApiResponse.success("Lấy thống kê giới hạn request thành công", authRateLimiter.getStats())
+        );
+    }
+    
+    @Operation(summary = "Migrate storage", description = "Move up to 'limit' blobs from one storage backend to another; call again until nothing is migrated")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Migration batch finished",
+                content = @Content(schema = @Schema(implementation = StorageMigrationResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unknown or identical backends"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @PostMapping("/storage/migrate")
+    public ResponseEntity<ApiResponse<StorageMigrationResponse>> migrateStorage(
+            @Parameter(description = "Source backend (gridfs, filesystem)", required = true)
+            @RequestParam String from,
+            @Parameter(description = "Target backend (gridfs, filesystem)", required = true)
+            @RequestParam String to,
+            @Parameter(description = "Maximum number of blobs to move in this call")
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            StorageMigrationResponse response = blobMigrationService.migrate(from, to, limit);
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã chuyển " + response.getMigratedBlobs() + " blob", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Reconcile storage usage", description = "Rebuild every user's usage counters from file metadata")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Number of users whose counters were corrected"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @PostMapping("/usage/reconcile")
+    public ResponseEntity<ApiResponse<Integer>> reconcileUsage() {
+        int corrected = storageUsageService.reconcile();
+        return ResponseEntity.ok(
+            ApiResponse.success("Đã đồng bộ lại dung lượng của " + corrected + " user", corrected)
+        );
+    }
+    
+    @Operation(summary = "Set user quota", description = "Override the storage quota of one user; omit bytes to go back to the default")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Quota updated",
+                content = @Content(schema = @Schema(implementation = StorageUsageResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Negative quota"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @PutMapping("/usage/{email}/quota")
+    public ResponseEntity<ApiResponse<StorageUsageResponse>> setQuota(
+            @Parameter(description = "User email", required = true)
+            @PathVariable String email,
+            @Parameter(description = "Quota in bytes")
+            @RequestParam(required = false) Long bytes) {
+        try {
+            StorageUsageResponse usage = storageUsageService.setQuota(email, bytes);
+            return ResponseEntity.ok(
+                ApiResponse.success("Cập nhật quota thành công", usage)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Start orphan reconciliation", description = "Scan GridFS and file metadata for orphans in the background, resuming an unfinished scan")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Scan started",
+                content = @Content(schema = @Schema(implementation = OrphanReconcileResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "A scan is already running")
+    })
+    @PostMapping("/storage/orphans/reconcile")
+    public ResponseEntity<ApiResponse<OrphanReconcileResponse>> reconcileOrphans() {
+        if (!orphanReconcileService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Đang có một lần quét khác chạy", orphanReconcileService.getStatus()));
+        }
+        return ResponseEntity.ok(
+            ApiResponse.success("Đã bắt đầu quét blob mồ côi", orphanReconcileService.getStatus())
+        );
+    }
+    
+    @Operation(summary = "Orphan reconciliation status", description = "Progress and findings of the current or last orphan scan")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Status retrieved",
+                content = @Content(schema = @Schema(implementation = OrphanReconcileResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @GetMapping("/storage/orphans")
+    public ResponseEntity<ApiResponse<OrphanReconcileResponse>> getOrphanStatus() {
+        return ResponseEntity.ok(
+            ApiResponse.success("Lấy trạng thái quét thành công", orphanReconcileService.getStatus())
+        );
+    }
+    
+    @Operation(summary = "Enable or disable user", description = "Disabling a user also revokes every token already issued to them")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "User updated"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "User not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator")
+    })
+    @PutMapping("/users/{email}/enabled")
+    public ResponseEntity<ApiResponse<Void>> setUserEnabled(
+            @Parameter(description = "User email", required = true)
+            @PathVariable String email,
+            @Parameter(description = "true to enable, false to disable", required = true)
+            @RequestParam boolean enabled) {
+        try {
+            userAccountService.setEnabled(email, enabled);
+            return ResponseEntity.ok(
+                ApiResponse.success(enabled ? "Đã mở khóa tài khoản" : "Đã khóa tài khoản")
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Import users", description = "Create accounts from a CSV (header: email,password,firstName,lastName) "
+            + "or NDJSON body; every row gets its own result, duplicates are reported, not fatal")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Import finished",
+                content = @Content(schema = @Schema(implementation = UserImportResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Missing CSV columns"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Not an administrator"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ApiResponse<UserImportResponse>> importUsers(HttpServletRequest request) {
+        String format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+            ? UserImportService.FORMAT_NDJSON
+            : UserImportService.FORMAT_CSV;
+        try {
+            UserImportResponse response = userImportService.importUsers(request.getInputStream(), format);
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã tạo " + response.getImported() + "/" + response.getTotal() + " tài khoản", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi đọc dữ liệu import: " + e.getMessage()));
+        }
+    }
+}
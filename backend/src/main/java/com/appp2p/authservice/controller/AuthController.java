@@ -1,6 +1,7 @@
 package com.appp2p.authservice.controller;
 
 import com.appp2p.authservice.dto.*;
+import com.appp2p.authservice.security.AuthRateLimiter;
 import com.appp2p.authservice.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -8,6 +9,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,16 +24,22 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+    
     @Operation(summary = "User login", description = "Authenticate user with email and password")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Login successful",
                 content = @Content(schema = @Schema(implementation = String.class))),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Invalid credentials",
                 content = @Content(schema = @Schema(implementation = String.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many requests from this IP or for this email"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.LOGIN, httpRequest.getRemoteAddr(), request.getEmail());
         ApiResponse<AuthResponse> response = authService.login(request);
         return ResponseEntity.ok(response);
     }
@@ -42,10 +50,13 @@ public class AuthController {
                 content = @Content(schema = @Schema(implementation = String.class))),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid input or user already exists",
                 content = @Content(schema = @Schema(implementation = String.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many requests from this IP or for this email"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<String>> register(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<ApiResponse<String>> register(@Valid @RequestBody RegisterRequest request,
+            HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.REGISTER, httpRequest.getRemoteAddr(), request.getEmail());
         ApiResponse<String> response = authService.register(request);
         return ResponseEntity.ok(response);
     }
@@ -56,10 +67,13 @@ public class AuthController {
                 content = @Content(schema = @Schema(implementation = String.class))),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid email or user not found",
                 content = @Content(schema = @Schema(implementation = String.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many requests from this IP or for this email"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/forgot-password")
-    public ResponseEntity<ApiResponse<String>> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
+    public ResponseEntity<ApiResponse<String>> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request,
+            HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.FORGOT_PASSWORD, httpRequest.getRemoteAddr(), request.getEmail());
         ApiResponse<String> response = authService.forgotPassword(request);
         return ResponseEntity.ok(response);
     }
@@ -1,9 +1,26 @@
 package com.appp2p.authservice.controller;
 
 import com.appp2p.authservice.dto.ApiResponse;
+import com.appp2p.authservice.dto.BatchUploadResult;
+import com.appp2p.authservice.dto.BulkDeleteRequest;
+import com.appp2p.authservice.dto.BulkDeleteResponse;
+import com.appp2p.authservice.dto.FileChangesResponse;
+import com.appp2p.authservice.dto.FilePageResponse;
+import com.appp2p.authservice.dto.FileSearchResponse;
 import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.dto.MoveRequest;
+import com.appp2p.authservice.dto.StorageUsageResponse;
+import com.appp2p.authservice.dto.ZipDownloadRequest;
 import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.FileThumbnail;
+import com.appp2p.authservice.service.FileSearchService;
 import com.appp2p.authservice.service.FileService;
+import com.appp2p.authservice.service.FileSyncService;
+import com.appp2p.authservice.service.MetadataExportService;
+import com.appp2p.authservice.service.StorageUsageService;
+import com.appp2p.authservice.service.ThumbnailService;
+import com.appp2p.authservice.service.ZipExportService;
+import com.appp2p.authservice.util.MultipartStreamReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,19 +28,35 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/files")
@@ -35,6 +68,39 @@ public class FileController {
     @Autowired
     private FileService fileService;
     
+    @Autowired
+    private FileSearchService fileSearchService;
+    
+    @Autowired
+    private FileSyncService fileSyncService;
+    
+    @Autowired
+    private MetadataExportService metadataExportService;
+    
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private ZipExportService zipExportService;
+    
+    @Autowired
+    private StorageUsageService storageUsageService;
+    
+    // Request attributes understood by Tomcat's NIO/APR connectors
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    
+    // Lets clients skip storing content the server already has
+    private static final String CONTENT_SHA256_HEADER = "X-Content-SHA256";
+    
+    @Value("${app.upload.stream.buffer-size:65536}")
+    private int streamBufferSize;
+    
+    @Value("${app.files.cache-max-age:31536000}")
+    private long fileCacheMaxAge;
+    
     @Operation(summary = "Upload file", description = "Upload a file to the server")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File uploaded successfully",
@@ -48,10 +114,14 @@ public class FileController {
     public ResponseEntity<ApiResponse<FileUploadResponse>> uploadFile(
             @Parameter(description = "File to upload", required = true)
             @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Target folder ID; omit for the top level")
+            @RequestParam(required = false) String folderId,
+            @Parameter(description = "SHA-256 of the content (hex); if the server already has it, nothing is stored again")
+            @RequestHeader(value = CONTENT_SHA256_HEADER, required = false) String contentSha256,
             Authentication authentication) {
         try {
             String userEmail = authentication.getName();
-            FileUploadResponse response = fileService.uploadFile(file, userEmail);
+            FileUploadResponse response = fileService.uploadFile(file, folderId, contentSha256, userEmail);
             return ResponseEntity.ok(
                 ApiResponse.success("File đã được tải lên thành công", response)
             );
@@ -64,7 +134,87 @@ public class FileController {
         }
     }
     
-    @Operation(summary = "Get user files", description = "Get all files uploaded by the authenticated user")
+    @Operation(summary = "Upload files (batch)", description = "Upload many files in one multipart request; each file gets its own result")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "At least one file uploaded; check each result",
+                content = @Content(schema = @Schema(implementation = BatchUploadResult.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "No files, too many files, or every file failed",
+                content = @Content(schema = @Schema(implementation = String.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<List<BatchUploadResult>>> uploadFiles(
+            @Parameter(description = "Files to upload", required = true)
+            @RequestParam("files") List<MultipartFile> files,
+            @Parameter(description = "Target folder ID; omit for the top level")
+            @RequestParam(required = false) String folderId,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            List<BatchUploadResult> results = fileService.uploadFiles(files, folderId, userEmail);
+            long succeeded = results.stream().filter(BatchUploadResult::isSuccess).count();
+            String message = "Đã tải lên " + succeeded + "/" + results.size() + " file";
+            if (succeeded == 0) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(message, results));
+            }
+            return ResponseEntity.ok(
+                ApiResponse.success(message, results)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Upload file (streaming)",
+            description = "Upload a multipart/form-data body straight into storage without temp files. Requires the Bearer header; the token query parameter is not accepted here")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File uploaded successfully",
+                content = @Content(schema = @Schema(implementation = FileUploadResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid multipart body or missing file part",
+                content = @Content(schema = @Schema(implementation = String.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<FileUploadResponse>> uploadFileStream(
+            HttpServletRequest request,
+            @Parameter(description = "SHA-256 of the content (hex); if the server already has it, nothing is stored again")
+            @RequestHeader(value = CONTENT_SHA256_HEADER, required = false) String contentSha256,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            String boundary = MultipartStreamReader.extractBoundary(request.getContentType());
+            if (boundary == null) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Request không phải multipart/form-data hợp lệ"));
+            }
+            
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, streamBufferSize);
+            MultipartStreamReader.Part part;
+            while ((part = reader.nextPart()) != null) {
+                // The first part carrying a filename is the file; other form fields are skipped
+                if (part.getFileName() != null) {
+                    FileUploadResponse response = fileService.uploadFileStream(
+                        part.getInputStream(), part.getFileName(), part.getContentType(), contentSha256, userEmail);
+                    return ResponseEntity.ok(
+                        ApiResponse.success("File đã được tải lên thành công", response)
+                    );
+                }
+            }
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Không tìm thấy file trong request"));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi tải file: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Get user files", description = "Newest files uploaded by the authenticated user, capped; use /my-files/page for everything")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Files retrieved successfully",
                 content = @Content(schema = @Schema(implementation = FileUploadResponse.class))),
@@ -86,6 +236,143 @@ public class FileController {
         }
     }
     
+    @Operation(summary = "Get user files (paged)", description = "Newest first; pass nextCursor back as cursor to get the next page")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                content = @Content(schema = @Schema(implementation = FilePageResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/my-files/page")
+    public ResponseEntity<ApiResponse<FilePageResponse>> getMyFilesPage(
+            @Parameter(description = "Cursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "File type (IMAGE, VIDEO, DOCUMENT)")
+            @RequestParam(required = false) String type,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            FilePageResponse page = fileService.getUserFilesPage(
+                userEmail, type != null ? type.toUpperCase() : null, cursor, size);
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy danh sách file thành công", page)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi lấy danh sách file: " + e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Export user files (NDJSON)", description = "Every file of the authenticated user, one JSON object per line, streamed newest first")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Metadata streamed",
+                content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = FileUploadResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping(value = "/my-files/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMyFiles(
+            @Parameter(description = "File type (IMAGE, VIDEO, DOCUMENT)")
+            @RequestParam(required = false) String type,
+            Authentication authentication) {
+        String userEmail = authentication.getName();
+        String fileType = type != null ? type.toUpperCase() : null;
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .cacheControl(CacheControl.noStore())
+            .body(out -> metadataExportService.writeNdjson(userEmail, fileType, out));
+    }
+    
+    @Operation(summary = "Get file changes", description = "Files added or changed and ids of files deleted after the since cursor, oldest change first. "
+            + "Start with since=0 and pass nextSince back; when fullResyncRequired is true, drop local state and start again from 0")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Changes retrieved successfully",
+                content = @Content(schema = @Schema(implementation = FileChangesResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid cursor or limit"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<FileChangesResponse>> getChanges(
+            @Parameter(description = "nextSince from the previous call; 0 for a full sync")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Maximum number of changes")
+            @RequestParam(defaultValue = "500") int limit,
+            Authentication authentication) {
+        try {
+            FileChangesResponse result = fileSyncService.getChanges(authentication.getName(), since, limit);
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy thay đổi thành công", result)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi lấy thay đổi: " + e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Search files by name", description = "Prefix, substring and word matches on the original file name, best match first")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Search completed successfully",
+                content = @Content(schema = @Schema(implementation = FileSearchResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Empty query or invalid page"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<FileSearchResponse>> searchFiles(
+            @Parameter(description = "Search text", required = true)
+            @RequestParam String q,
+            @Parameter(description = "File type (IMAGE, VIDEO, DOCUMENT)")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Zero-based page number")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            FileSearchResponse result = fileSearchService.search(
+                userEmail, q, type != null ? type.toUpperCase() : null, page, size);
+            return ResponseEntity.ok(
+                ApiResponse.success("Tìm kiếm file thành công", result)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi tìm kiếm file: " + e.getMessage()));
+        }
+    }
+    
+    @Operation(summary = "Get storage usage", description = "Bytes and file counts used by the authenticated user, per file type, and the quota")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Usage retrieved successfully",
+                content = @Content(schema = @Schema(implementation = StorageUsageResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/usage")
+    public ResponseEntity<ApiResponse<StorageUsageResponse>> getUsage(Authentication authentication) {
+        try {
+            StorageUsageResponse usage = storageUsageService.getUsage(authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy dung lượng sử dụng thành công", usage)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi lấy dung lượng sử dụng: " + e.getMessage()));
+        }
+    }
+    
     @Operation(summary = "Get user files by type", description = "Get files uploaded by the authenticated user filtered by file type")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Files retrieved successfully",
@@ -119,9 +406,12 @@ public class FileController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<InputStreamResource> downloadFile(
+    public ResponseEntity<StreamingResponseBody> downloadFile(
             @Parameter(description = "File ID", required = true)
             @PathVariable String fileId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            ServletWebRequest webRequest,
             Authentication authentication) {
         try {
             String userEmail = authentication.getName();
@@ -132,15 +422,8 @@ public class FileController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            InputStream fileStream = fileService.downloadFile(fileId);
-            InputStreamResource resource = new InputStreamResource(fileStream);
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                       "attachment; filename=\"" + metadata.getOriginalFileName() + "\"")
-                .contentType(MediaType.parseMediaType(metadata.getContentType()))
-                .contentLength(metadata.getFileSize())
-                .body(resource);
+            return streamFile(metadata, range, ifRange, webRequest,
+                "attachment; filename=\"" + metadata.getOriginalFileName() + "\"");
                 
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -149,6 +432,37 @@ public class FileController {
         }
     }
     
+    @Operation(summary = "Download files as ZIP", description = "Stream the selected files (by id, or all files of a type) as one ZIP archive")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "ZIP archive streamed"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Empty or too large selection"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "A selected file does not exist, or no file matches")
+    })
+    @PostMapping("/download/zip")
+    public ResponseEntity<StreamingResponseBody> downloadZip(
+            @RequestBody ZipDownloadRequest request,
+            Authentication authentication) {
+        return zipResponse(request.getFileIds(), request.getFileType(), authentication.getName());
+    }
+    
+    @Operation(summary = "Download files as ZIP (link)", description = "Same as POST /download/zip, for plain browser links")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "ZIP archive streamed"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Empty or too large selection"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "A selected file does not exist, or no file matches")
+    })
+    @GetMapping("/download/zip")
+    public ResponseEntity<StreamingResponseBody> downloadZipLink(
+            @Parameter(description = "File IDs")
+            @RequestParam(value = "ids", required = false) List<String> fileIds,
+            @Parameter(description = "File type (IMAGE, VIDEO, DOCUMENT), used when no ids are given")
+            @RequestParam(value = "type", required = false) String fileType,
+            Authentication authentication) {
+        return zipResponse(fileIds, fileType, authentication.getName());
+    }
+    
     @Operation(summary = "Preview file", description = "Preview a file by its ID (for images and videos)")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File preview loaded successfully"),
@@ -158,10 +472,51 @@ public class FileController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/preview/{fileId}")
-    public ResponseEntity<InputStreamResource> previewFile(
+    public ResponseEntity<StreamingResponseBody> previewFile(
+            @Parameter(description = "File ID", required = true)
+            @PathVariable String fileId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            ServletWebRequest webRequest,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            FileMetadata metadata = fileService.getFileMetadata(fileId);
+            
+            // Check if user owns the file
+            if (!metadata.getUploadedBy().equals(userEmail)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            
+            return streamFile(metadata, range, ifRange, webRequest, null);
+                
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @Operation(summary = "Get thumbnail", description = "Downscaled JPEG/PNG of an image; falls back to the original while the thumbnail is still being generated")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Thumbnail (or original image) loaded successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unknown thumbnail size"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Access denied - not file owner"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "File not found or not an image"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/thumbnail/{fileId}")
+    public ResponseEntity<StreamingResponseBody> getThumbnail(
             @Parameter(description = "File ID", required = true)
             @PathVariable String fileId,
+            @Parameter(description = "Thumbnail size: small (256px) or medium (1024px)")
+            @RequestParam(defaultValue = ThumbnailService.VARIANT_SMALL) String size,
+            ServletWebRequest webRequest,
             Authentication authentication) {
+        if (!ThumbnailService.isSupportedVariant(size)) {
+            return ResponseEntity.badRequest().build();
+        }
         try {
             String userEmail = authentication.getName();
             FileMetadata metadata = fileService.getFileMetadata(fileId);
@@ -170,14 +525,26 @@ public class FileController {
             if (!metadata.getUploadedBy().equals(userEmail)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
+            if (!"IMAGE".equals(metadata.getFileType())) {
+                return ResponseEntity.notFound().build();
+            }
             
-            InputStream fileStream = fileService.downloadFile(fileId);
-            InputStreamResource resource = new InputStreamResource(fileStream);
+            Optional<FileThumbnail> thumbnail = thumbnailService.getThumbnail(fileId, size);
+            if (thumbnail.isPresent()) {
+                return thumbnailResponse(metadata, thumbnail.get(), webRequest);
+            }
             
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(metadata.getContentType()))
-                .contentLength(metadata.getFileSize())
-                .body(resource);
+            if (!ThumbnailService.STATUS_FAILED.equals(metadata.getThumbnailStatus())) {
+                thumbnailService.requestThumbnails(metadata);
+            }
+            // Serve the original for now, but make the client come back for the real thumbnail
+            ResponseEntity<StreamingResponseBody> original = streamFile(metadata, null, null, webRequest, null);
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(original.getHeaders());
+            headers.setCacheControl(CacheControl.noCache().cachePrivate());
+            return ResponseEntity.status(original.getStatusCode())
+                .headers(headers)
+                .body(original.getBody());
                 
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -216,6 +583,33 @@ public class FileController {
         }
     }
     
+    @Operation(summary = "Delete files (bulk)", description = "Delete many files by id, or every file matching a type and/or folder (with subfolders); failures are reported per id")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Delete finished; check failures",
+                content = @Content(schema = @Schema(implementation = BulkDeleteResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "No ids or filter, too many ids, or folder not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/delete/bulk")
+    public ResponseEntity<ApiResponse<BulkDeleteResponse>> deleteFiles(
+            @RequestBody BulkDeleteRequest request,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            BulkDeleteResponse response = fileService.deleteFiles(request, userEmail);
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã xóa " + response.getDeletedCount() + " file", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi xóa file: " + e.getMessage()));
+        }
+    }
+    
     @Operation(summary = "Get file info", description = "Get detailed information about a file by its ID")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File information retrieved successfully",
@@ -284,4 +678,254 @@ public class FileController {
                 .body(ApiResponse.error("Lỗi khi đổi tên file: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    @Operation(summary = "Move file", description = "Move a file into a folder, or to the top level when targetFolderId is null")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File moved successfully",
+                content = @Content(schema = @Schema(implementation = FileUploadResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "File or folder not found, or not owned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping("/{fileId}/move")
+    public ResponseEntity<ApiResponse<FileUploadResponse>> moveFile(
+            @Parameter(description = "File ID", required = true)
+            @PathVariable String fileId,
+            @RequestBody MoveRequest request,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            FileUploadResponse response = fileService.moveFile(fileId, request.getTargetFolderId(), userEmail);
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã di chuyển file", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi di chuyển file: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Trả về toàn bộ file (200) hoặc các đoạn byte được yêu cầu qua header Range (206).
+     * Range bị bỏ qua nếu If-Range không khớp với phiên bản hiện tại của file.
+     * Request có điều kiện (If-None-Match, If-Modified-Since) được trả 304 chỉ dựa vào metadata,
+     * không mở stream GridFS.
+     */
+    private ResponseEntity<StreamingResponseBody> streamFile(FileMetadata metadata, String range, String ifRange,
+                                                             ServletWebRequest webRequest,
+                                                             String contentDisposition) throws IOException {
+        long fileSize = metadata.getFileSize();
+        String etag = fileService.getETag(metadata);
+        long lastModified = fileService.getLastModified(metadata);
+        // Stored content never changes, but downloads need the token so only private caches may keep it
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(fileCacheMaxAge)).cachePrivate().immutable();
+        
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            // Status (304 or 412) plus ETag and Last-Modified are already set on the response
+            return ResponseEntity.status(webRequest.getResponse().getStatus())
+                .cacheControl(cacheControl)
+                .build();
+        }
+        MediaType contentType = metadata.getContentType() != null
+            ? MediaType.parseMediaType(metadata.getContentType())
+            : MediaType.APPLICATION_OCTET_STREAM;
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        if (contentDisposition != null) {
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        
+        List<long[]> ranges = List.of();
+        if (range != null && fileSize > 0 && ifRangeMatches(ifRange, etag, lastModified)) {
+            ranges = resolveRanges(range, fileSize);
+            if (ranges == null) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+        }
+        
+        if (ranges.isEmpty()) {
+            if (trySendFile(metadata, webRequest.getRequest(), 0, fileSize)) {
+                return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentType(contentType)
+                    .contentLength(fileSize)
+                    .build();
+            }
+            InputStream fileStream = fileService.openRange(metadata, 0, fileSize);
+            return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(contentType)
+                .contentLength(fileSize)
+                .body(out -> copyAndClose(fileStream, out));
+        }
+        
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            if (trySendFile(metadata, webRequest.getRequest(), start, end + 1)) {
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .contentType(contentType)
+                    .contentLength(end - start + 1)
+                    .build();
+            }
+            InputStream rangeStream = fileService.openRange(metadata, start, end - start + 1);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .contentType(contentType)
+                .contentLength(end - start + 1)
+                .body(out -> copyAndClose(rangeStream, out));
+        }
+        
+        // Multiple ranges: multipart/byteranges, each part opened only when it is written
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (long[] r : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                + HttpHeaders.CONTENT_RANGE + ": bytes " + r[0] + "-" + r[1] + "/" + fileSize + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (r[1] - r[0] + 1);
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+        
+        final List<long[]> partRanges = ranges;
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+            .headers(headers)
+            .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+            .contentLength(contentLength)
+            .body(out -> {
+                for (int i = 0; i < partRanges.size(); i++) {
+                    long[] r = partRanges.get(i);
+                    out.write(partHeaders.get(i));
+                    copyAndClose(fileService.openRange(metadata, r[0], r[1] - r[0] + 1), out);
+                }
+                out.write(closing);
+            });
+    }
+    
+    private ResponseEntity<StreamingResponseBody> zipResponse(List<String> fileIds, String fileType, String userEmail) {
+        List<FileMetadata> files;
+        try {
+            files = zipExportService.resolveSelection(fileIds, fileType, userEmail);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        String archiveName = fileIds == null || fileIds.isEmpty() ? fileType.toLowerCase(Locale.ROOT) + ".zip" : "files.zip";
+        // Size is unknown until the last entry is written, so the response is chunked
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archiveName + "\"")
+            .cacheControl(CacheControl.noStore())
+            .body(out -> zipExportService.writeZip(files, out));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> thumbnailResponse(FileMetadata metadata, FileThumbnail thumbnail,
+                                                                    ServletWebRequest webRequest) {
+        // Derived from immutable content, so it can be cached like the original
+        String etag = "\"" + fileService.getETag(metadata).replace("\"", "") + "-" + thumbnail.getVariant() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(fileCacheMaxAge)).cachePrivate().immutable();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(webRequest.getResponse().getStatus())
+                .cacheControl(cacheControl)
+                .build();
+        }
+        byte[] data = thumbnail.getData();
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl)
+            .eTag(etag)
+            .contentType(MediaType.parseMediaType(thumbnail.getContentType()))
+            .contentLength(data.length)
+            .body(out -> out.write(data));
+    }
+    
+    /**
+     * Nhờ Tomcat gửi đoạn [start, end) của file cục bộ bằng sendfile (zero-copy) sau khi controller trả về.
+     *
+     * @return false nếu blob không có file cục bộ hoặc connector không hỗ trợ sendfile
+     */
+    private boolean trySendFile(FileMetadata metadata, HttpServletRequest request, long start, long end) {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            return false;
+        }
+        Optional<Path> localPath = fileService.resolveLocalPath(metadata);
+        if (localPath.isEmpty()) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, localPath.get().toString());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end);
+        return true;
+    }
+    
+    /**
+     * Chuyển header Range thành các cặp [start, end] (đã kẹp theo kích thước file).
+     *
+     * @return danh sách rỗng nếu Range sai cú pháp (bỏ qua, trả cả file), null nếu không đoạn nào thỏa mãn
+     */
+    private List<long[]> resolveRanges(String range, long fileSize) {
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+        
+        List<long[]> resolved = new ArrayList<>();
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            long start = httpRange.getRangeStart(fileSize);
+            long end = httpRange.getRangeEnd(fileSize);
+            if (start >= fileSize || start > end) {
+                continue;
+            }
+            resolved.add(new long[] {start, end});
+            total += end - start + 1;
+        }
+        if (resolved.isEmpty()) {
+            return null;
+        }
+        // Overlapping ranges adding up to more than the file are not worth honouring
+        if (total > fileSize) {
+            return List.of();
+        }
+        return resolved;
+    }
+    
+    private boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            // If-Range requires a strong comparison
+            return value.equals(etag);
+        }
+        try {
+            long since = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return since / 1000 == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+    
+    private static void copyAndClose(InputStream in, OutputStream out) throws IOException {
+        try (in) {
+            in.transferTo(out);
+        }
+    }
+}
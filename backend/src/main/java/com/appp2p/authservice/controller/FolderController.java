@@ -0,0 +1,198 @@
+package com.appp2p.authservice.controller;
+
+import com.appp2p.authservice.dto.ApiResponse;
+import com.appp2p.authservice.dto.CreateFolderRequest;
+import com.appp2p.authservice.dto.FilePageResponse;
+import com.appp2p.authservice.dto.FolderContentsResponse;
+import com.appp2p.authservice.dto.FolderResponse;
+import com.appp2p.authservice.dto.FolderSizeResponse;
+import com.appp2p.authservice.dto.MoveRequest;
+import com.appp2p.authservice.service.FileService;
+import com.appp2p.authservice.service.FolderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/folders")
+@CrossOrigin(origins = "*")
+@Tag(name = "Folder Management", description = "API endpoints for organizing files into folders")
+@SecurityRequirement(name = "Bearer Authentication")
+public class FolderController {
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Operation(summary = "Create folder", description = "Create a folder inside parentId, or at the top level when parentId is omitted")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Folder created",
+                content = @Content(schema = @Schema(implementation = FolderResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid name, duplicate name or parent not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping
+    public ResponseEntity<ApiResponse<FolderResponse>> createFolder(
+            @Valid @RequestBody CreateFolderRequest request,
+            Authentication authentication) {
+        try {
+            FolderResponse response = folderService.createFolder(
+                request.getName(), request.getParentId(), authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Tạo thư mục thành công", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "List folder contents", description = "Subfolders and a page of files directly inside a folder; omit folderId for the top level")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Contents retrieved successfully",
+                content = @Content(schema = @Schema(implementation = FolderContentsResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Folder not found, invalid cursor or page size"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/contents")
+    public ResponseEntity<ApiResponse<FolderContentsResponse>> getContents(
+            @Parameter(description = "Folder ID; omit for the top level")
+            @RequestParam(required = false) String folderId,
+            @Parameter(description = "File cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "File page size")
+            @RequestParam(required = false) Integer size,
+            Authentication authentication) {
+        try {
+            String userEmail = authentication.getName();
+            FolderResponse folder = folderId != null
+                ? folderService.convertToResponse(folderService.getOwnedFolder(folderId, userEmail))
+                : null;
+            List<FolderResponse> folders = folderService.listChildren(folderId, userEmail);
+            FilePageResponse files = fileService.getFolderFilesPage(userEmail, folderId, cursor, size);
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy nội dung thư mục thành công", new FolderContentsResponse(folder, folders, files))
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi lấy nội dung thư mục: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get folder size", description = "Total bytes, files and folders in the whole subtree")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Size computed successfully",
+                content = @Content(schema = @Schema(implementation = FolderSizeResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Folder not found or not owned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/{folderId}/size")
+    public ResponseEntity<ApiResponse<FolderSizeResponse>> getSize(
+            @Parameter(description = "Folder ID", required = true)
+            @PathVariable String folderId,
+            Authentication authentication) {
+        try {
+            FolderSizeResponse response = folderService.getSubtreeSize(folderId, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy dung lượng thư mục thành công", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Rename folder", description = "Rename a folder; its contents are not touched")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Folder renamed",
+                content = @Content(schema = @Schema(implementation = FolderResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid or duplicate name, folder not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PutMapping("/{folderId}/rename")
+    public ResponseEntity<ApiResponse<FolderResponse>> renameFolder(
+            @Parameter(description = "Folder ID", required = true)
+            @PathVariable String folderId,
+            @Parameter(description = "New folder name", required = true)
+            @RequestParam String newName,
+            Authentication authentication) {
+        try {
+            FolderResponse response = folderService.renameFolder(folderId, newName, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Thư mục đã được đổi tên thành công", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Move folder", description = "Move a folder and everything in it; targetFolderId null moves it to the top level")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Folder moved",
+                content = @Content(schema = @Schema(implementation = FolderResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Folder not found, duplicate name or move into own subtree"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping("/{folderId}/move")
+    public ResponseEntity<ApiResponse<FolderResponse>> moveFolder(
+            @Parameter(description = "Folder ID", required = true)
+            @PathVariable String folderId,
+            @RequestBody MoveRequest request,
+            Authentication authentication) {
+        try {
+            FolderResponse response = folderService.moveFolder(
+                folderId, request.getTargetFolderId(), authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã di chuyển thư mục", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi di chuyển thư mục: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Delete folder", description = "Delete an empty folder")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Folder deleted"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Folder not found, not owned or not empty"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @DeleteMapping("/{folderId}")
+    public ResponseEntity<ApiResponse<Void>> deleteFolder(
+            @Parameter(description = "Folder ID", required = true)
+            @PathVariable String folderId,
+            Authentication authentication) {
+        try {
+            folderService.deleteFolder(folderId, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã xóa thư mục")
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
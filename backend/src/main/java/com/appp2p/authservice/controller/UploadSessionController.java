@@ -0,0 +1,164 @@
+package com.appp2p.authservice.controller;
+
+import com.appp2p.authservice.dto.ApiResponse;
+import com.appp2p.authservice.dto.CreateUploadSessionRequest;
+import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.dto.UploadSessionResponse;
+import com.appp2p.authservice.service.UploadSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/files/uploads")
+@CrossOrigin(origins = "*")
+@Tag(name = "Resumable Upload", description = "API endpoints for chunked, resumable file uploads")
+@SecurityRequirement(name = "Bearer Authentication")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Operation(summary = "Create upload session", description = "Start a resumable upload and get the chunk layout")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Upload session created",
+                content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid file size or chunk size"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createSession(
+            @Valid @RequestBody CreateUploadSessionRequest request,
+            Authentication authentication) {
+        try {
+            UploadSessionResponse response = uploadSessionService.createSession(request, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Tạo phiên upload thành công", response)
+            );
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi tạo phiên upload: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get upload session status", description = "List the chunks the server already has")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Session status retrieved",
+                content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Session not found, expired or not owned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getSession(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String sessionId,
+            Authentication authentication) {
+        try {
+            UploadSessionResponse response = uploadSessionService.getSession(sessionId, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Lấy trạng thái phiên upload thành công", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Upload chunk", description = "Upload (or retry) one chunk as a raw request body; chunks may arrive in any order")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Chunk stored",
+                content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid chunk index or length"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping(value = "/{sessionId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> uploadChunk(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String sessionId,
+            @Parameter(description = "Zero-based chunk index", required = true)
+            @PathVariable int index,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            UploadSessionResponse response = uploadSessionService.uploadChunk(
+                sessionId, index, request.getInputStream(), request.getContentLengthLong(), authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Tải chunk thành công", response)
+            );
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi tải chunk: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Complete upload session", description = "Assemble the uploaded chunks into a file")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "File uploaded successfully",
+                content = @Content(schema = @Schema(implementation = FileUploadResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Chunks missing or session not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<ApiResponse<FileUploadResponse>> completeSession(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String sessionId,
+            Authentication authentication) {
+        try {
+            FileUploadResponse response = uploadSessionService.completeSession(sessionId, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("File đã được tải lên thành công", response)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Lỗi khi hoàn tất upload: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Abort upload session", description = "Discard an upload session and the chunks stored so far")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Upload session aborted"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Session not found or not owned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<Void>> abortSession(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String sessionId,
+            Authentication authentication) {
+        try {
+            uploadSessionService.abortSession(sessionId, authentication.getName());
+            return ResponseEntity.ok(
+                ApiResponse.success("Đã hủy phiên upload")
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
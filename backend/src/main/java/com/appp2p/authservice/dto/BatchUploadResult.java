@@ -0,0 +1,61 @@
+package com.appp2p.authservice.dto;
+
+public class BatchUploadResult {
+    
+    private String originalFileName;
+    private boolean success;
+    private FileUploadResponse file; // Set when success
+    private String error; // Set when failed
+    
+    // Constructors
+    public BatchUploadResult() {}
+    
+    public BatchUploadResult(String originalFileName, boolean success, FileUploadResponse file, String error) {
+        this.originalFileName = originalFileName;
+        this.success = success;
+        this.file = file;
+        this.error = error;
+    }
+    
+    // Static factory methods
+    public static BatchUploadResult success(FileUploadResponse file) {
+        return new BatchUploadResult(file.getOriginalFileName(), true, file, null);
+    }
+    
+    public static BatchUploadResult failure(String originalFileName, String error) {
+        return new BatchUploadResult(originalFileName, false, null, error);
+    }
+    
+    // Getters and Setters
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+    
+    public void setOriginalFileName(String originalFileName) {
+        this.originalFileName = originalFileName;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public FileUploadResponse getFile() {
+        return file;
+    }
+    
+    public void setFile(FileUploadResponse file) {
+        this.file = file;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
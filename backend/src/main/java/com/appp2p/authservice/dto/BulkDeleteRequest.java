@@ -0,0 +1,48 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class BulkDeleteRequest {
+    
+    // Either explicit file ids or a filter; ids win when both are set
+    private List<String> fileIds;
+    
+    // Filter: file type (IMAGE, VIDEO, DOCUMENT) and/or a folder, including its subfolders
+    private String fileType;
+    
+    private String folderId;
+    
+    // Constructors
+    public BulkDeleteRequest() {}
+    
+    public BulkDeleteRequest(List<String> fileIds, String fileType, String folderId) {
+        this.fileIds = fileIds;
+        this.fileType = fileType;
+        this.folderId = folderId;
+    }
+    
+    // Getters and Setters
+    public List<String> getFileIds() {
+        return fileIds;
+    }
+    
+    public void setFileIds(List<String> fileIds) {
+        this.fileIds = fileIds;
+    }
+    
+    public String getFileType() {
+        return fileType;
+    }
+    
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+    
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+}
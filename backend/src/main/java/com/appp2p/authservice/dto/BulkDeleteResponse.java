@@ -0,0 +1,65 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class BulkDeleteResponse {
+    
+    private long deletedCount;
+    private List<Failure> failures; // Only ids that were not deleted
+    
+    // Constructors
+    public BulkDeleteResponse() {}
+    
+    public BulkDeleteResponse(long deletedCount, List<Failure> failures) {
+        this.deletedCount = deletedCount;
+        this.failures = failures;
+    }
+    
+    // Getters and Setters
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+    
+    public void setDeletedCount(long deletedCount) {
+        this.deletedCount = deletedCount;
+    }
+    
+    public List<Failure> getFailures() {
+        return failures;
+    }
+    
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+    
+    public static class Failure {
+        
+        private String fileId;
+        private String error;
+        
+        // Constructors
+        public Failure() {}
+        
+        public Failure(String fileId, String error) {
+            this.fileId = fileId;
+            this.error = error;
+        }
+        
+        // Getters and Setters
+        public String getFileId() {
+            return fileId;
+        }
+        
+        public void setFileId(String fileId) {
+            this.fileId = fileId;
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.appp2p.authservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class CreateFolderRequest {
+    
+    @NotBlank(message = "Tên thư mục không được để trống")
+    private String name;
+    
+    private String parentId; // null creates a top-level folder
+    
+    // Constructors
+    public CreateFolderRequest() {}
+    
+    public CreateFolderRequest(String name, String parentId) {
+        this.name = name;
+        this.parentId = parentId;
+    }
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getParentId() {
+        return parentId;
+    }
+    
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+}
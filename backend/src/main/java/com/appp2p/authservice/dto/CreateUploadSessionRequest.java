@@ -0,0 +1,60 @@
+package com.appp2p.authservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+public class CreateUploadSessionRequest {
+    
+    @NotBlank(message = "Tên file không được để trống")
+    private String fileName;
+    
+    private String contentType;
+    
+    @Positive(message = "Kích thước file phải lớn hơn 0")
+    private long totalSize;
+    
+    // Optional, defaults to the server configured chunk size
+    private Integer chunkSize;
+    
+    // Constructors
+    public CreateUploadSessionRequest() {}
+    
+    public CreateUploadSessionRequest(String fileName, String contentType, long totalSize) {
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.totalSize = totalSize;
+    }
+    
+    // Getters and Setters
+    public String getFileName() {
+        return fileName;
+    }
+    
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public long getTotalSize() {
+        return totalSize;
+    }
+    
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+    
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+    
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
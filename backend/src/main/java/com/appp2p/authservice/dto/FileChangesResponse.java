@@ -0,0 +1,65 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class FileChangesResponse {
+    
+    private List<FileUploadResponse> upserts; // Files added or changed since the cursor
+    private List<String> deletedIds;
+    private long nextSince; // Pass back as since on the next call
+    private boolean hasMore;
+    private boolean fullResyncRequired; // Cursor too old or unknown; drop local state and sync from 0
+    
+    // Constructors
+    public FileChangesResponse() {}
+    
+    public FileChangesResponse(List<FileUploadResponse> upserts, List<String> deletedIds, long nextSince,
+                               boolean hasMore, boolean fullResyncRequired) {
+        this.upserts = upserts;
+        this.deletedIds = deletedIds;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+        this.fullResyncRequired = fullResyncRequired;
+    }
+    
+    // Getters and Setters
+    public List<FileUploadResponse> getUpserts() {
+        return upserts;
+    }
+    
+    public void setUpserts(List<FileUploadResponse> upserts) {
+        this.upserts = upserts;
+    }
+    
+    public List<String> getDeletedIds() {
+        return deletedIds;
+    }
+    
+    public void setDeletedIds(List<String> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+    
+    public long getNextSince() {
+        return nextSince;
+    }
+    
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public boolean isFullResyncRequired() {
+        return fullResyncRequired;
+    }
+    
+    public void setFullResyncRequired(boolean fullResyncRequired) {
+        this.fullResyncRequired = fullResyncRequired;
+    }
+}
@@ -0,0 +1,44 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class FilePageResponse {
+    
+    private List<FileUploadResponse> files;
+    private String nextCursor; // Pass back as ?cursor= to get the next page; null on the last page
+    private boolean hasMore;
+    
+    // Constructors
+    public FilePageResponse() {}
+    
+    public FilePageResponse(List<FileUploadResponse> files, String nextCursor, boolean hasMore) {
+        this.files = files;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<FileUploadResponse> getFiles() {
+        return files;
+    }
+    
+    public void setFiles(List<FileUploadResponse> files) {
+        this.files = files;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
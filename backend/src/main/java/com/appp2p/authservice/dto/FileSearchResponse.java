@@ -0,0 +1,63 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class FileSearchResponse {
+    
+    private List<FileUploadResponse> files; // Best match first
+    private int page;
+    private int size;
+    private boolean hasMore;
+    private boolean truncated; // Only the newest matches were ranked; refine the query to see older ones
+    
+    // Constructors
+    public FileSearchResponse() {}
+    
+    public FileSearchResponse(List<FileUploadResponse> files, int page, int size, boolean hasMore) {
+        this.files = files;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<FileUploadResponse> getFiles() {
+        return files;
+    }
+    
+    public void setFiles(List<FileUploadResponse> files) {
+        this.files = files;
+    }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public void setPage(int page) {
+        this.page = page;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+}
@@ -12,6 +12,8 @@ public class FileUploadResponse {
     private String fileType;
     private LocalDateTime uploadedAt;
     private String downloadUrl;
+    private String thumbnailUrl; // Only for images
+    private String folderId; // null at the top level
     
     // Constructors
     public FileUploadResponse() {}
@@ -93,4 +95,20 @@ public class FileUploadResponse {
     public void setDownloadUrl(String downloadUrl) {
         this.downloadUrl = downloadUrl;
     }
-}
\ No newline at end of file
+    
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+    
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+    
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class FolderContentsResponse {
+    
+    private FolderResponse folder; // null for the top level
+    private List<FolderResponse> folders; // All direct subfolders, by name
+    private FilePageResponse files; // Direct files, newest first, paged
+    
+    // Constructors
+    public FolderContentsResponse() {}
+    
+    public FolderContentsResponse(FolderResponse folder, List<FolderResponse> folders, FilePageResponse files) {
+        this.folder = folder;
+        this.folders = folders;
+        this.files = files;
+    }
+    
+    // Getters and Setters
+    public FolderResponse getFolder() {
+        return folder;
+    }
+    
+    public void setFolder(FolderResponse folder) {
+        this.folder = folder;
+    }
+    
+    public List<FolderResponse> getFolders() {
+        return folders;
+    }
+    
+    public void setFolders(List<FolderResponse> folders) {
+        this.folders = folders;
+    }
+    
+    public FilePageResponse getFiles() {
+        return files;
+    }
+    
+    public void setFiles(FilePageResponse files) {
+        this.files = files;
+    }
+}
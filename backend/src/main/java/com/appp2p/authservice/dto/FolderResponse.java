@@ -0,0 +1,54 @@
+package com.appp2p.authservice.dto;
+
+import java.time.LocalDateTime;
+
+public class FolderResponse {
+    
+    private String id;
+    private String name;
+    private String parentId; // null for top-level folders
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public FolderResponse() {}
+    
+    public FolderResponse(String id, String name, String parentId, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.parentId = parentId;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getParentId() {
+        return parentId;
+    }
+    
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
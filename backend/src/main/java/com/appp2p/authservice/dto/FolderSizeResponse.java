@@ -0,0 +1,52 @@
+package com.appp2p.authservice.dto;
+
+public class FolderSizeResponse {
+    
+    private String folderId;
+    private long totalBytes;
+    private long totalFiles; // Files anywhere in the subtree
+    private long totalFolders; // Descendant folders, not counting this one
+    
+    // Constructors
+    public FolderSizeResponse() {}
+    
+    public FolderSizeResponse(String folderId, long totalBytes, long totalFiles, long totalFolders) {
+        this.folderId = folderId;
+        this.totalBytes = totalBytes;
+        this.totalFiles = totalFiles;
+        this.totalFolders = totalFolders;
+    }
+    
+    // Getters and Setters
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+    
+    public void setTotalFiles(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+    
+    public long getTotalFolders() {
+        return totalFolders;
+    }
+    
+    public void setTotalFolders(long totalFolders) {
+        this.totalFolders = totalFolders;
+    }
+}
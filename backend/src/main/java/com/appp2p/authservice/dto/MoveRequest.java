@@ -0,0 +1,22 @@
+package com.appp2p.authservice.dto;
+
+public class MoveRequest {
+    
+    private String targetFolderId; // null moves to the top level
+    
+    // Constructors
+    public MoveRequest() {}
+    
+    public MoveRequest(String targetFolderId) {
+        this.targetFolderId = targetFolderId;
+    }
+    
+    // Getters and Setters
+    public String getTargetFolderId() {
+        return targetFolderId;
+    }
+    
+    public void setTargetFolderId(String targetFolderId) {
+        this.targetFolderId = targetFolderId;
+    }
+}
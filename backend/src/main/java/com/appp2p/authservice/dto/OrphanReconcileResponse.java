@@ -0,0 +1,120 @@
+package com.appp2p.authservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class OrphanReconcileResponse {
+    
+    private boolean running; // A scan is running on this node
+    private boolean inProgress; // Last scan stopped midway and will resume
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long blobsScanned;
+    private long metadataScanned;
+    private long orphanBlobsDeleted;
+    private long orphanBytesDeleted;
+    private long orphanBlobsInGrace; // Unreferenced but younger than the grace period, left alone
+    private long dedupOnlyBlobs; // Referenced by stored_blobs but by no file, kept while acquired within the grace period
+    private long danglingMetadata; // Files whose blob is missing, reported only
+    private List<String> danglingMetadataSample; // First few FileMetadata ids of those
+    
+    // Constructors
+    public OrphanReconcileResponse() {}
+    
+    // Getters and Setters
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+    
+    public boolean isInProgress() {
+        return inProgress;
+    }
+    
+    public void setInProgress(boolean inProgress) {
+        this.inProgress = inProgress;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getBlobsScanned() {
+        return blobsScanned;
+    }
+    
+    public void setBlobsScanned(long blobsScanned) {
+        this.blobsScanned = blobsScanned;
+    }
+    
+    public long getMetadataScanned() {
+        return metadataScanned;
+    }
+    
+    public void setMetadataScanned(long metadataScanned) {
+        this.metadataScanned = metadataScanned;
+    }
+    
+    public long getOrphanBlobsDeleted() {
+        return orphanBlobsDeleted;
+    }
+    
+    public void setOrphanBlobsDeleted(long orphanBlobsDeleted) {
+        this.orphanBlobsDeleted = orphanBlobsDeleted;
+    }
+    
+    public long getOrphanBytesDeleted() {
+        return orphanBytesDeleted;
+    }
+    
+    public void setOrphanBytesDeleted(long orphanBytesDeleted) {
+        this.orphanBytesDeleted = orphanBytesDeleted;
+    }
+    
+    public long getOrphanBlobsInGrace() {
+        return orphanBlobsInGrace;
+    }
+    
+    public void setOrphanBlobsInGrace(long orphanBlobsInGrace) {
+        this.orphanBlobsInGrace = orphanBlobsInGrace;
+    }
+    
+    public long getDedupOnlyBlobs() {
+        return dedupOnlyBlobs;
+    }
+    
+    public void setDedupOnlyBlobs(long dedupOnlyBlobs) {
+        this.dedupOnlyBlobs = dedupOnlyBlobs;
+    }
+    
+    public long getDanglingMetadata() {
+        return danglingMetadata;
+    }
+    
+    public void setDanglingMetadata(long danglingMetadata) {
+        this.danglingMetadata = danglingMetadata;
+    }
+    
+    public List<String> getDanglingMetadataSample() {
+        return danglingMetadataSample;
+    }
+    
+    public void setDanglingMetadataSample(List<String> danglingMetadataSample) {
+        this.danglingMetadataSample = danglingMetadataSample;
+    }
+}
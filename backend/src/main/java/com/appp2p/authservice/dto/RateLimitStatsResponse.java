@@ -0,0 +1,62 @@
+package com.appp2p.authservice.dto;
+
+public class RateLimitStatsResponse {
+    
+    private String endpoint;
+    private long allowed;
+    private long rejectedByIp;
+    private long rejectedByEmail;
+    private long activeBuckets;
+    
+    // Constructors
+    public RateLimitStatsResponse() {}
+    
+    public RateLimitStatsResponse(String endpoint, long allowed, long rejectedByIp, long rejectedByEmail, long activeBuckets) {
+        this.endpoint = endpoint;
+        this.allowed = allowed;
+        this.rejectedByIp = rejectedByIp;
+        this.rejectedByEmail = rejectedByEmail;
+        this.activeBuckets = activeBuckets;
+    }
+    
+    // Getters and Setters
+    public String getEndpoint() {
+        return endpoint;
+    }
+    
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+    
+    public long getAllowed() {
+        return allowed;
+    }
+    
+    public void setAllowed(long allowed) {
+        this.allowed = allowed;
+    }
+    
+    public long getRejectedByIp() {
+        return rejectedByIp;
+    }
+    
+    public void setRejectedByIp(long rejectedByIp) {
+        this.rejectedByIp = rejectedByIp;
+    }
+    
+    public long getRejectedByEmail() {
+        return rejectedByEmail;
+    }
+    
+    public void setRejectedByEmail(long rejectedByEmail) {
+        this.rejectedByEmail = rejectedByEmail;
+    }
+    
+    public long getActiveBuckets() {
+        return activeBuckets;
+    }
+    
+    public void setActiveBuckets(long activeBuckets) {
+        this.activeBuckets = activeBuckets;
+    }
+}
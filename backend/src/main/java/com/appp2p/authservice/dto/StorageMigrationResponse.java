@@ -0,0 +1,65 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class StorageMigrationResponse {
+    
+    private String from;
+    private String to;
+    private int migratedBlobs;
+    private long migratedFiles;
+    private List<String> failedBlobIds;
+    
+    // Constructors
+    public StorageMigrationResponse() {}
+    
+    public StorageMigrationResponse(String from, String to, int migratedBlobs, long migratedFiles,
+                                    List<String> failedBlobIds) {
+        this.from = from;
+        this.to = to;
+        this.migratedBlobs = migratedBlobs;
+        this.migratedFiles = migratedFiles;
+        this.failedBlobIds = failedBlobIds;
+    }
+    
+    // Getters and Setters
+    public String getFrom() {
+        return from;
+    }
+    
+    public void setFrom(String from) {
+        this.from = from;
+    }
+    
+    public String getTo() {
+        return to;
+    }
+    
+    public void setTo(String to) {
+        this.to = to;
+    }
+    
+    public int getMigratedBlobs() {
+        return migratedBlobs;
+    }
+    
+    public void setMigratedBlobs(int migratedBlobs) {
+        this.migratedBlobs = migratedBlobs;
+    }
+    
+    public long getMigratedFiles() {
+        return migratedFiles;
+    }
+    
+    public void setMigratedFiles(long migratedFiles) {
+        this.migratedFiles = migratedFiles;
+    }
+    
+    public List<String> getFailedBlobIds() {
+        return failedBlobIds;
+    }
+    
+    public void setFailedBlobIds(List<String> failedBlobIds) {
+        this.failedBlobIds = failedBlobIds;
+    }
+}
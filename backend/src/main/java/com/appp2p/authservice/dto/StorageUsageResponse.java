@@ -0,0 +1,75 @@
+package com.appp2p.authservice.dto;
+
+import java.util.Map;
+
+public class StorageUsageResponse {
+    
+    private long totalBytes;
+    private long totalFiles;
+    private Map<String, Long> bytesByType;
+    private Map<String, Long> filesByType;
+    private Long quotaBytes; // null when unlimited
+    private Long remainingBytes; // null when unlimited
+    
+    // Constructors
+    public StorageUsageResponse() {}
+    
+    public StorageUsageResponse(long totalBytes, long totalFiles, Map<String, Long> bytesByType,
+                                Map<String, Long> filesByType, Long quotaBytes) {
+        this.totalBytes = totalBytes;
+        this.totalFiles = totalFiles;
+        this.bytesByType = bytesByType;
+        this.filesByType = filesByType;
+        this.quotaBytes = quotaBytes;
+        this.remainingBytes = quotaBytes != null ? Math.max(0, quotaBytes - totalBytes) : null;
+    }
+    
+    // Getters and Setters
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+    
+    public void setTotalFiles(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+    
+    public Map<String, Long> getBytesByType() {
+        return bytesByType;
+    }
+    
+    public void setBytesByType(Map<String, Long> bytesByType) {
+        this.bytesByType = bytesByType;
+    }
+    
+    public Map<String, Long> getFilesByType() {
+        return filesByType;
+    }
+    
+    public void setFilesByType(Map<String, Long> filesByType) {
+        this.filesByType = filesByType;
+    }
+    
+    public Long getQuotaBytes() {
+        return quotaBytes;
+    }
+    
+    public void setQuotaBytes(Long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+    
+    public Long getRemainingBytes() {
+        return remainingBytes;
+    }
+    
+    public void setRemainingBytes(Long remainingBytes) {
+        this.remainingBytes = remainingBytes;
+    }
+}
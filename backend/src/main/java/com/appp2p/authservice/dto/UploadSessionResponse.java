@@ -0,0 +1,107 @@
+package com.appp2p.authservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadSessionResponse {
+    
+    private String sessionId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private int totalChunks;
+    private List<Integer> receivedChunks;
+    private List<Integer> missingChunks;
+    private long receivedBytes;
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public UploadSessionResponse() {}
+    
+    public UploadSessionResponse(String sessionId, String fileName, long totalSize, int chunkSize,
+                                 int totalChunks, List<Integer> receivedChunks, List<Integer> missingChunks,
+                                 long receivedBytes, LocalDateTime expiresAt) {
+        this.sessionId = sessionId;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.totalChunks = totalChunks;
+        this.receivedChunks = receivedChunks;
+        this.missingChunks = missingChunks;
+        this.receivedBytes = receivedBytes;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public String getFileName() {
+        return fileName;
+    }
+    
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+    
+    public long getTotalSize() {
+        return totalSize;
+    }
+    
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+    
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+    
+    public void setTotalChunks(int totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+    
+    public List<Integer> getReceivedChunks() {
+        return receivedChunks;
+    }
+    
+    public void setReceivedChunks(List<Integer> receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+    
+    public List<Integer> getMissingChunks() {
+        return missingChunks;
+    }
+    
+    public void setMissingChunks(List<Integer> missingChunks) {
+        this.missingChunks = missingChunks;
+    }
+    
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+    
+    public void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class UserImportResponse {
+    
+    public static final String STATUS_IMPORTED = "IMPORTED";
+    public static final String STATUS_DUPLICATE = "DUPLICATE";
+    public static final String STATUS_INVALID = "INVALID";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private int total;
+    private int imported;
+    private List<RowResult> rows; // One entry per data row, in input order
+    private boolean truncated; // Rows past the limit were not read
+    
+    // Constructors
+    public UserImportResponse() {}
+    
+    public UserImportResponse(int total, int imported, List<RowResult> rows) {
+        this.total = total;
+        this.imported = imported;
+        this.rows = rows;
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+    
+    public void setTotal(int total) {
+        this.total = total;
+    }
+    
+    public int getImported() {
+        return imported;
+    }
+    
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+    
+    public List<RowResult> getRows() {
+        return rows;
+    }
+    
+    public void setRows(List<RowResult> rows) {
+        this.rows = rows;
+    }
+    
+    public static class RowResult {
+        
+        private int row; // 1-based data row, header excluded
+        private String email;
+        private String status;
+        private String error;
+        
+        // Constructors
+        public RowResult() {}
+        
+        public RowResult(int row, String email, String status, String error) {
+            this.row = row;
+            this.email = email;
+            this.status = status;
+            this.error = error;
+        }
+        
+        // Getters and Setters
+        public int getRow() {
+            return row;
+        }
+        
+        public void setRow(int row) {
+            this.row = row;
+        }
+        
+        public String getEmail() {
+            return email;
+        }
+        
+        public void setEmail(String email) {
+            this.email = email;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
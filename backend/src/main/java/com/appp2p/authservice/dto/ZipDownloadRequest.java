@@ -0,0 +1,36 @@
+package com.appp2p.authservice.dto;
+
+import java.util.List;
+
+public class ZipDownloadRequest {
+    
+    // Either explicit file ids or a file type (IMAGE, VIDEO, DOCUMENT); ids win when both are set
+    private List<String> fileIds;
+    
+    private String fileType;
+    
+    // Constructors
+    public ZipDownloadRequest() {}
+    
+    public ZipDownloadRequest(List<String> fileIds, String fileType) {
+        this.fileIds = fileIds;
+        this.fileType = fileType;
+    }
+    
+    // Getters and Setters
+    public List<String> getFileIds() {
+        return fileIds;
+    }
+    
+    public void setFileIds(List<String> fileIds) {
+        this.fileIds = fileIds;
+    }
+    
+    public String getFileType() {
+        return fileType;
+    }
+    
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+}
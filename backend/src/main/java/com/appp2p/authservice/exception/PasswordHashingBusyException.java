@@ -0,0 +1,13 @@
+package com.appp2p.authservice.exception;
+
+/**
+ * Pool băm mật khẩu đã đầy. GlobalExceptionHandler trả về 503 để client thử lại sau.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.appp2p.authservice.exception;
+
+/**
+ * Upload vượt quá dung lượng cho phép của user. Là một IllegalArgumentException nên các controller trả về 400 kèm thông báo.
+ */
+public class QuotaExceededException extends IllegalArgumentException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.appp2p.authservice.exception;
+
+/**
+ * Vượt giới hạn số request. GlobalExceptionHandler trả về 429 kèm Retry-After.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterSeconds;
+    
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,45 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Bộ đếm thay đổi của một user: mỗi lần thêm, sửa, xóa file nhận một số lớn hơn mọi số trước đó.
+ */
+@Document(collection = "change_sequences")
+public class ChangeSequence {
+    
+    @Id
+    private String id; // User email
+    
+    private long seq; // Last number handed out
+    private long prunedThroughSeq; // Tombstones up to here are gone; older cursors need a full resync
+    
+    // Constructors
+    public ChangeSequence() {}
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+    
+    public long getPrunedThroughSeq() {
+        return prunedThroughSeq;
+    }
+    
+    public void setPrunedThroughSeq(long prunedThroughSeq) {
+        this.prunedThroughSeq = prunedThroughSeq;
+    }
+}
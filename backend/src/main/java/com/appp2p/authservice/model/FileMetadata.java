@@ -1,11 +1,30 @@
 package com.appp2p.authservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+// Returned as-is by /files/info; internal bookkeeping fields are @JsonIgnore
 @Document(collection = "file_metadata")
+@CompoundIndexes({
+    // Back the per-user listings (newest first); _id breaks ties for keyset pagination
+    @CompoundIndex(name = "uploadedBy_uploadedAt", def = "{'uploadedBy': 1, 'uploadedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "uploadedBy_fileType_uploadedAt", def = "{'uploadedBy': 1, 'fileType': 1, 'uploadedAt': -1, '_id': -1}"),
+    // Filename search, see SearchTokenizer
+    @CompoundIndex(name = "uploadedBy_searchTokens", def = "{'uploadedBy': 1, 'searchTokens': 1}"),
+    // Folder listing (newest first) and subtree queries, see Folder.path
+    @CompoundIndex(name = "uploadedBy_folderId_uploadedAt", def = "{'uploadedBy': 1, 'folderId': 1, 'uploadedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "uploadedBy_folderPath", def = "{'uploadedBy': 1, 'folderPath': 1}"),
+    // Blob reference lookups (storage migration, orphan reconciliation)
+    @CompoundIndex(name = "gridFsId", def = "{'gridFsId': 1}"),
+    // Delta sync
+    @CompoundIndex(name = "uploadedBy_changeSeq", def = "{'uploadedBy': 1, 'changeSeq': 1}")
+})
 public class FileMetadata {
     
     @Id
@@ -15,10 +34,24 @@ public class FileMetadata {
     private String originalFileName;
     private String contentType;
     private long fileSize;
-    private String gridFsId;
+    private String gridFsId; // Blob id in the storage backend (field name kept from the GridFS-only days)
+    @JsonIgnore
+    private String storageBackend; // null means gridfs
+    private String thumbnailStatus; // PENDING, READY, FAILED; null for non-images
+    @JsonIgnore
+    private List<String> searchTokens; // Derived from originalFileName
     private String uploadedBy; // User email
+    private String folderId; // null for files at the top level
+    @JsonIgnore
+    private String folderPath; // Copy of the folder's path, null at the top level
     private LocalDateTime uploadedAt;
     private String fileType; // IMAGE, VIDEO, DOCUMENT
+    @JsonIgnore
+    private String contentHash; // SHA-256 of the content, null for blobs that are not deduplicated
+    @JsonIgnore
+    private Long changeSeq; // Per-user change number of the last insert/update, see ChangeSequence
+    @JsonIgnore
+    private LocalDateTime changedAt;
     
     // Constructors
     public FileMetadata() {
@@ -109,4 +142,68 @@ public class FileMetadata {
     public void setFileType(String fileType) {
         this.fileType = fileType;
     }
-}
\ No newline at end of file
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public String getStorageBackend() {
+        return storageBackend;
+    }
+    
+    public void setStorageBackend(String storageBackend) {
+        this.storageBackend = storageBackend;
+    }
+    
+    public String getThumbnailStatus() {
+        return thumbnailStatus;
+    }
+    
+    public void setThumbnailStatus(String thumbnailStatus) {
+        this.thumbnailStatus = thumbnailStatus;
+    }
+    
+    public List<String> getSearchTokens() {
+        return searchTokens;
+    }
+    
+    public void setSearchTokens(List<String> searchTokens) {
+        this.searchTokens = searchTokens;
+    }
+    
+    public String getFolderId() {
+        return folderId;
+    }
+    
+    public void setFolderId(String folderId) {
+        this.folderId = folderId;
+    }
+    
+    public String getFolderPath() {
+        return folderPath;
+    }
+    
+    public void setFolderPath(String folderPath) {
+        this.folderPath = folderPath;
+    }
+    
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+    
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+    
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
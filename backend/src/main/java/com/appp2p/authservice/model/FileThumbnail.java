@@ -0,0 +1,112 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ảnh thu nhỏ của một file IMAGE. Mỗi ảnh chỉ vài chục KB nên lưu thẳng trong document.
+ */
+@Document(collection = "file_thumbnails")
+public class FileThumbnail {
+    
+    @Id
+    private String id; // fileId:variant
+    
+    @Indexed
+    private String fileId;
+    
+    private String variant; // small, medium
+    private int width;
+    private int height;
+    private String contentType;
+    private byte[] data;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public FileThumbnail() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public FileThumbnail(String fileId, String variant, int width, int height, String contentType, byte[] data) {
+        this.id = idOf(fileId, variant);
+        this.fileId = fileId;
+        this.variant = variant;
+        this.width = width;
+        this.height = height;
+        this.contentType = contentType;
+        this.data = data;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public static String idOf(String fileId, String variant) {
+        return fileId + ":" + variant;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getFileId() {
+        return fileId;
+    }
+    
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+    
+    public String getVariant() {
+        return variant;
+    }
+    
+    public void setVariant(String variant) {
+        this.variant = variant;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public void setWidth(int width) {
+        this.width = width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public void setHeight(int height) {
+        this.height = height;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public byte[] getData() {
+        return data;
+    }
+    
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dấu vết của một file đã xóa, để client đồng bộ theo delta biết cần bỏ file nào.
+ */
+@Document(collection = "file_tombstones")
+@CompoundIndex(name = "uploadedBy_changeSeq", def = "{'uploadedBy': 1, 'changeSeq': 1}")
+public class FileTombstone {
+    
+    @Id
+    private String id; // Id of the deleted file
+    
+    private String uploadedBy; // User email
+    private long changeSeq;
+    
+    @Indexed
+    private LocalDateTime deletedAt;
+    
+    // Constructors
+    public FileTombstone() {}
+    
+    public FileTombstone(String id, String uploadedBy, long changeSeq) {
+        this.id = id;
+        this.uploadedBy = uploadedBy;
+        this.changeSeq = changeSeq;
+        this.deletedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+    
+    public void setUploadedBy(String uploadedBy) {
+        this.uploadedBy = uploadedBy;
+    }
+    
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+    
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+    
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
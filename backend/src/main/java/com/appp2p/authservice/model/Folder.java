@@ -0,0 +1,121 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "folders")
+@CompoundIndexes({
+    // Children of one folder; also keeps sibling names unique
+    @CompoundIndex(name = "owner_parentId_name", def = "{'owner': 1, 'parentId': 1, 'name': 1}", unique = true),
+    // Whole subtree as one anchored prefix scan
+    @CompoundIndex(name = "owner_path", def = "{'owner': 1, 'path': 1}")
+})
+public class Folder {
+    
+    @Id
+    private String id;
+    
+    private String name;
+    private String owner; // User email
+    private String parentId; // null for top-level folders
+    private String path; // Ids from the top down to this folder, e.g. "/a/b/"; never changes on rename
+    private LocalDateTime createdAt;
+    
+    // Set only while this folder is being moved; a leftover past its lease is finished by the repair job
+    private String moveFromPath;
+    private String moveToPath;
+    @Indexed(sparse = true)
+    private LocalDateTime moveLeaseUntil;
+    
+    // Constructors
+    public Folder() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public Folder(String id, String name, String owner, String parentId, String path) {
+        this.id = id;
+        this.name = name;
+        this.owner = owner;
+        this.parentId = parentId;
+        this.path = path;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public String getParentId() {
+        return parentId;
+    }
+    
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public void setPath(String path) {
+        this.path = path;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public String getMoveFromPath() {
+        return moveFromPath;
+    }
+    
+    public void setMoveFromPath(String moveFromPath) {
+        this.moveFromPath = moveFromPath;
+    }
+    
+    public String getMoveToPath() {
+        return moveToPath;
+    }
+    
+    public void setMoveToPath(String moveToPath) {
+        this.moveToPath = moveToPath;
+    }
+    
+    public LocalDateTime getMoveLeaseUntil() {
+        return moveLeaseUntil;
+    }
+    
+    public void setMoveLeaseUntil(LocalDateTime moveLeaseUntil) {
+        this.moveLeaseUntil = moveLeaseUntil;
+    }
+}
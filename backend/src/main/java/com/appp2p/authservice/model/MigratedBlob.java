@@ -0,0 +1,85 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản gốc của một blob đã được copy sang backend khác, chờ xóa khi không còn metadata nào trỏ tới nó.
+ */
+@Document(collection = "migrated_blobs")
+public class MigratedBlob {
+    
+    @Id
+    private String id;
+    
+    private String sourceBackend;
+    private String sourceBlobId;
+    private String targetBackend;
+    private String targetBlobId;
+    
+    @Indexed
+    private LocalDateTime migratedAt;
+    
+    // Constructors
+    public MigratedBlob() {}
+    
+    public MigratedBlob(String sourceBackend, String sourceBlobId, String targetBackend, String targetBlobId) {
+        this.sourceBackend = sourceBackend;
+        this.sourceBlobId = sourceBlobId;
+        this.targetBackend = targetBackend;
+        this.targetBlobId = targetBlobId;
+        this.migratedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getSourceBackend() {
+        return sourceBackend;
+    }
+    
+    public void setSourceBackend(String sourceBackend) {
+        this.sourceBackend = sourceBackend;
+    }
+    
+    public String getSourceBlobId() {
+        return sourceBlobId;
+    }
+    
+    public void setSourceBlobId(String sourceBlobId) {
+        this.sourceBlobId = sourceBlobId;
+    }
+    
+    public String getTargetBackend() {
+        return targetBackend;
+    }
+    
+    public void setTargetBackend(String targetBackend) {
+        this.targetBackend = targetBackend;
+    }
+    
+    public String getTargetBlobId() {
+        return targetBlobId;
+    }
+    
+    public void setTargetBlobId(String targetBlobId) {
+        this.targetBlobId = targetBlobId;
+    }
+    
+    public LocalDateTime getMigratedAt() {
+        return migratedAt;
+    }
+    
+    public void setMigratedAt(LocalDateTime migratedAt) {
+        this.migratedAt = migratedAt;
+    }
+}
@@ -0,0 +1,154 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tiến độ và kết quả của lần quét blob mồ côi gần nhất. lastKey khác null nghĩa là lần quét chưa xong
+ * và lần chạy sau sẽ tiếp tục từ đó. leaseUntil đảm bảo chỉ một node quét tại một thời điểm.
+ */
+@Document(collection = "reconcile_checkpoints")
+public class OrphanReconcileState {
+    
+    @Id
+    private String id;
+    
+    private String lastKey; // Last blob id handled on both sides; null when no scan is in progress
+    private LocalDateTime leaseUntil;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private long blobsScanned;
+    private long metadataScanned;
+    private long orphanBlobsDeleted;
+    private long orphanBytesDeleted;
+    private long orphanBlobsInGrace; // Unreferenced but younger than the grace period, left alone
+    private long dedupOnlyBlobs; // Referenced by stored_blobs but by no file, kept while acquired within the grace period
+    private long danglingMetadata; // Files whose blob is missing, reported only
+    private List<String> danglingMetadataSample; // First few FileMetadata ids of those
+    
+    // Constructors
+    public OrphanReconcileState() {}
+    
+    public OrphanReconcileState(String id) {
+        this.id = id;
+        this.danglingMetadataSample = new ArrayList<>();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getLastKey() {
+        return lastKey;
+    }
+    
+    public void setLastKey(String lastKey) {
+        this.lastKey = lastKey;
+    }
+    
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getBlobsScanned() {
+        return blobsScanned;
+    }
+    
+    public void setBlobsScanned(long blobsScanned) {
+        this.blobsScanned = blobsScanned;
+    }
+    
+    public long getMetadataScanned() {
+        return metadataScanned;
+    }
+    
+    public void setMetadataScanned(long metadataScanned) {
+        this.metadataScanned = metadataScanned;
+    }
+    
+    public long getOrphanBlobsDeleted() {
+        return orphanBlobsDeleted;
+    }
+    
+    public void setOrphanBlobsDeleted(long orphanBlobsDeleted) {
+        this.orphanBlobsDeleted = orphanBlobsDeleted;
+    }
+    
+    public long getOrphanBytesDeleted() {
+        return orphanBytesDeleted;
+    }
+    
+    public void setOrphanBytesDeleted(long orphanBytesDeleted) {
+        this.orphanBytesDeleted = orphanBytesDeleted;
+    }
+    
+    public long getOrphanBlobsInGrace() {
+        return orphanBlobsInGrace;
+    }
+    
+    public void setOrphanBlobsInGrace(long orphanBlobsInGrace) {
+        this.orphanBlobsInGrace = orphanBlobsInGrace;
+    }
+    
+    public long getDedupOnlyBlobs() {
+        return dedupOnlyBlobs;
+    }
+    
+    public void setDedupOnlyBlobs(long dedupOnlyBlobs) {
+        this.dedupOnlyBlobs = dedupOnlyBlobs;
+    }
+    
+    public long getDanglingMetadata() {
+        return danglingMetadata;
+    }
+    
+    public void setDanglingMetadata(long danglingMetadata) {
+        this.danglingMetadata = danglingMetadata;
+    }
+    
+    public List<String> getDanglingMetadataSample() {
+        return danglingMetadataSample;
+    }
+    
+    public void setDanglingMetadataSample(List<String> danglingMetadataSample) {
+        this.danglingMetadataSample = danglingMetadataSample;
+    }
+}
@@ -0,0 +1,97 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một blob trong storage được chia sẻ bởi mọi FileMetadata có cùng nội dung (SHA-256).
+ */
+@Document(collection = "stored_blobs")
+public class StoredBlob {
+    
+    @Id
+    private String id;
+    
+    @Indexed(unique = true)
+    private String contentHash; // SHA-256, hex
+    
+    @Indexed
+    private String gridFsId; // Blob id in the storage backend
+    
+    private String storageBackend; // null means gridfs
+    private long size;
+    private long refCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastAcquiredAt; // Absent on records from before it was tracked; createdAt stands in
+    
+    // Constructors
+    public StoredBlob() {}
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public String getGridFsId() {
+        return gridFsId;
+    }
+    
+    public void setGridFsId(String gridFsId) {
+        this.gridFsId = gridFsId;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public void setSize(long size) {
+        this.size = size;
+    }
+    
+    public long getRefCount() {
+        return refCount;
+    }
+    
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public String getStorageBackend() {
+        return storageBackend;
+    }
+    
+    public void setStorageBackend(String storageBackend) {
+        this.storageBackend = storageBackend;
+    }
+    
+    public LocalDateTime getLastAcquiredAt() {
+        return lastAcquiredAt;
+    }
+    
+    public void setLastAcquiredAt(LocalDateTime lastAcquiredAt) {
+        this.lastAcquiredAt = lastAcquiredAt;
+    }
+}
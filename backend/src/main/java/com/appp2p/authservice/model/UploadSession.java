@@ -0,0 +1,217 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Document(collection = "upload_sessions")
+public class UploadSession {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_COMPLETING = "COMPLETING";
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String uploadedBy; // User email
+
+    private String originalFileName;
+    private String contentType;
+    private long totalSize;
+    private int chunkSize; // Size of one client chunk, a multiple of the backend's part alignment
+    private String storageBackend;
+    private String uploadId; // Multipart upload id in the storage backend, becomes the blob id
+    private Set<Integer> receivedChunks = new HashSet<>();
+    private List<ChunkWrite> chunkWrites = new ArrayList<>(); // Chunks being written right now; completion waits for them
+    private String status = STATUS_ACTIVE;
+    private LocalDateTime createdAt;
+
+    @Indexed
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public UploadSession() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public UploadSession(String uploadedBy, String originalFileName, String contentType,
+                         long totalSize, int chunkSize, String storageBackend, String uploadId,
+                         LocalDateTime expiresAt) {
+        this.uploadedBy = uploadedBy;
+        this.originalFileName = originalFileName;
+        this.contentType = contentType;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.storageBackend = storageBackend;
+        this.uploadId = uploadId;
+        this.expiresAt = expiresAt;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public int getTotalChunks() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    public long getChunkLength(int index) {
+        long offset = (long) index * chunkSize;
+        return Math.min(chunkSize, totalSize - offset);
+    }
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public void setUploadedBy(String uploadedBy) {
+        this.uploadedBy = uploadedBy;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public void setOriginalFileName(String originalFileName) {
+        this.originalFileName = originalFileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public String getStorageBackend() {
+        return storageBackend;
+    }
+
+    public void setStorageBackend(String storageBackend) {
+        this.storageBackend = storageBackend;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Set<Integer> getReceivedChunks() {
+        return receivedChunks;
+    }
+
+    public void setReceivedChunks(Set<Integer> receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public List<ChunkWrite> getChunkWrites() {
+        return chunkWrites;
+    }
+
+    public void setChunkWrites(List<ChunkWrite> chunkWrites) {
+        this.chunkWrites = chunkWrites;
+    }
+
+    /**
+     * Một chunk đang được ghi vào storage
+     */
+    public static class ChunkWrite {
+
+        private String token;
+        private int index;
+        private LocalDateTime startedAt;
+
+        public ChunkWrite() {}
+
+        public ChunkWrite(String token, int index, LocalDateTime startedAt) {
+            this.token = token;
+            this.index = index;
+            this.startedAt = startedAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public void setStartedAt(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
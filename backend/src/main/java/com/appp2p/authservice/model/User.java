@@ -39,6 +39,12 @@ public class User implements UserDetails {
     
     private Set<Role> roles = Set.of(Role.USER);
     
+    // Bumped on password reset or disable; tokens carrying an older version are rejected
+    private long securityVersion;
+    
+    @Indexed(sparse = true)
+    private LocalDateTime securityVersionAt;
+    
     @CreatedDate
     private LocalDateTime createdAt;
     
@@ -158,6 +164,22 @@ public class User implements UserDetails {
         this.roles = roles;
     }
     
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+    
+    public void setSecurityVersion(long securityVersion) {
+        this.securityVersion = securityVersion;
+    }
+    
+    public LocalDateTime getSecurityVersionAt() {
+        return securityVersionAt;
+    }
+    
+    public void setSecurityVersionAt(LocalDateTime securityVersionAt) {
+        this.securityVersionAt = securityVersionAt;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
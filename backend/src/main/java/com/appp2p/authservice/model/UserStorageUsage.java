@@ -0,0 +1,90 @@
+package com.appp2p.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dung lượng một user đang dùng, cập nhật bằng $inc mỗi lần upload/xóa thay vì quét file_metadata.
+ */
+@Document(collection = "user_storage_usage")
+public class UserStorageUsage {
+    
+    @Id
+    private String id; // User email
+    
+    private long totalBytes;
+    private long totalFiles;
+    private Map<String, Long> bytesByType = new HashMap<>(); // IMAGE, VIDEO, DOCUMENT
+    private Map<String, Long> filesByType = new HashMap<>();
+    private Long quotaBytes; // Per-user override, null means the configured default
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public UserStorageUsage() {}
+    
+    public UserStorageUsage(String id) {
+        this.id = id;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+    
+    public void setTotalFiles(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+    
+    public Map<String, Long> getBytesByType() {
+        return bytesByType;
+    }
+    
+    public void setBytesByType(Map<String, Long> bytesByType) {
+        this.bytesByType = bytesByType;
+    }
+    
+    public Map<String, Long> getFilesByType() {
+        return filesByType;
+    }
+    
+    public void setFilesByType(Map<String, Long> filesByType) {
+        this.filesByType = filesByType;
+    }
+    
+    public Long getQuotaBytes() {
+        return quotaBytes;
+    }
+    
+    public void setQuotaBytes(Long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.appp2p.authservice.repository;
+
+import com.appp2p.authservice.model.FileThumbnail;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileThumbnailRepository extends MongoRepository<FileThumbnail, String> {
+    
+    void deleteByFileId(String fileId);
+}
@@ -0,0 +1,14 @@
+package com.appp2p.authservice.repository;
+
+import com.appp2p.authservice.model.Folder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FolderRepository extends MongoRepository<Folder, String> {
+    
+    List<Folder> findByOwnerAndParentId(String owner, String parentId, Sort sort);
+}
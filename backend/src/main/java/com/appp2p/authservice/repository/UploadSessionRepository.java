@@ -0,0 +1,14 @@
+package com.appp2p.authservice.repository;
+
+import com.appp2p.authservice.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+    
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime time);
+}
@@ -0,0 +1,182 @@
+package com.appp2p.authservice.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.appp2p.authservice.dto.RateLimitStatsResponse;
+import com.appp2p.authservice.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Giới hạn số request tới các endpoint xác thực bằng token bucket theo IP và theo email, ngay trong ứng dụng,
+ * để không phụ thuộc vào việc request có đi qua nginx hay không.
+ * Bucket nằm trong Caffeine và bị xóa khi không dùng; trạng thái bucket được bảo vệ bởi một mảng lock
+ * (lock striping) thay vì một lock chung.
+ */
+@Component
+public class AuthRateLimiter {
+
+    public static final String LOGIN = "login";
+    public static final String REGISTER = "register";
+    public static final String FORGOT_PASSWORD = "forgot-password";
+
+    private static final List<String> ENDPOINTS = List.of(LOGIN, REGISTER, FORGOT_PASSWORD);
+    private static final int STRIPES = 64;
+
+    @Value("${app.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ratelimit.window:60000}")
+    private long windowMillis;
+
+    @Value("${app.ratelimit.idle-eviction:600000}")
+    private long idleMillis;
+
+    @Value("${app.ratelimit.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${app.ratelimit.login.per-ip:20}")
+    private int loginPerIp;
+
+    @Value("${app.ratelimit.login.per-email:5}")
+    private int loginPerEmail;
+
+    @Value("${app.ratelimit.register.per-ip:5}")
+    private int registerPerIp;
+
+    @Value("${app.ratelimit.register.per-email:3}")
+    private int registerPerEmail;
+
+    @Value("${app.ratelimit.forgot-password.per-ip:5}")
+    private int forgotPasswordPerIp;
+
+    @Value("${app.ratelimit.forgot-password.per-email:3}")
+    private int forgotPasswordPerEmail;
+
+    private final Map<String, Limit> limits = new LinkedHashMap<>();
+    private final Map<String, Counters> counters = new LinkedHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+    private final LongSupplier clock;
+    private long windowNanos;
+    private Cache<String, Bucket> buckets;
+
+    public AuthRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    AuthRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        limits.put(LOGIN, new Limit(loginPerIp, loginPerEmail));
+        limits.put(REGISTER, new Limit(registerPerIp, registerPerEmail));
+        limits.put(FORGOT_PASSWORD, new Limit(forgotPasswordPerIp, forgotPasswordPerEmail));
+        for (String endpoint : ENDPOINTS) {
+            counters.put(endpoint, new Counters());
+        }
+        // A bucket idle for a whole window is full again, so evicting it loses nothing
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxBuckets)
+            .expireAfterAccess(Duration.ofMillis(Math.max(idleMillis, windowMillis)))
+            .build();
+    }
+
+    /**
+     * Lấy một token từ bucket của IP và (nếu có) của email.
+     *
+     * @throws RateLimitExceededException nếu một trong hai bucket đã hết
+     */
+    public void check(String endpoint, String clientIp, String email) {
+        Limit limit = limits.get(endpoint);
+        if (!enabled || limit == null) {
+            return;
+        }
+        Counters stats = counters.get(endpoint);
+        long waitNanos = tryAcquire(endpoint + "|ip|" + clientIp, limit.perIp());
+        if (waitNanos > 0) {
+            stats.rejectedByIp.increment();
+            throw rejected(waitNanos);
+        }
+        if (email != null && !email.isBlank()) {
+            waitNanos = tryAcquire(endpoint + "|email|" + email.trim().toLowerCase(Locale.ROOT), limit.perEmail());
+            if (waitNanos > 0) {
+                stats.rejectedByEmail.increment();
+                throw rejected(waitNanos);
+            }
+        }
+        stats.allowed.increment();
+    }
+
+    public List<RateLimitStatsResponse> getStats() {
+        Map<String, Long> active = new LinkedHashMap<>();
+        for (String key : buckets.asMap().keySet()) {
+            active.merge(key.substring(0, key.indexOf('|')), 1L, Long::sum);
+        }
+        List<RateLimitStatsResponse> stats = new ArrayList<>();
+        counters.forEach((endpoint, c) -> stats.add(new RateLimitStatsResponse(
+            endpoint, c.allowed.sum(), c.rejectedByIp.sum(), c.rejectedByEmail.sum(), active.getOrDefault(endpoint, 0L))));
+        return stats;
+    }
+
+    /**
+     * @return 0 nếu lấy được token, ngược lại số nano giây tới khi có token tiếp theo
+     */
+    private long tryAcquire(String key, int capacity) {
+        Bucket bucket = buckets.get(key, k -> new Bucket(capacity, clock.getAsLong()));
+        synchronized (locks[Math.floorMod(key.hashCode(), STRIPES)]) {
+            long now = clock.getAsLong();
+            // Continuous refill: the full capacity comes back over one window
+            double nanosPerToken = (double) windowNanos / capacity;
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) / nanosPerToken);
+            bucket.refilledAt = now;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - bucket.tokens) * nanosPerToken));
+        }
+    }
+
+    private static RateLimitExceededException rejected(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return new RateLimitExceededException("Quá nhiều yêu cầu, vui lòng thử lại sau " + seconds + " giây", seconds);
+    }
+
+    private record Limit(int perIp, int perEmail) {}
+
+    private static final class Counters {
+        final LongAdder allowed = new LongAdder();
+        final LongAdder rejectedByIp = new LongAdder();
+        final LongAdder rejectedByEmail = new LongAdder();
+    }
+
+    // Guarded by the stripe lock of its key
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.appp2p.authservice.security;
 
+import com.appp2p.authservice.config.MultipartConfig;
 import com.appp2p.authservice.service.UserDetailsServiceImpl;
 import com.appp2p.authservice.util.JwtUtil;
+import com.appp2p.authservice.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -25,23 +30,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
     
+    @Autowired
+    private UserSecurityVersions userSecurityVersions;
+    
+    @Value("${app.security.stateless-principal:false}")
+    private boolean statelessPrincipal;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
         final String authorizationHeader = request.getHeader("Authorization");
-        final String tokenParam = request.getParameter("token");
         
-        String username = null;
+        VerifiedToken verified = null;
         String jwt = null;
         
         // Kiểm tra và extract JWT token từ Authorization header
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
         }
-        // Nếu không có token trong header, kiểm tra query parameter (cho file endpoints)
-        else if (tokenParam != null && !tokenParam.isEmpty()) {
-            jwt = tokenParam;
+        // Nếu không có token trong header, kiểm tra query parameter (cho file endpoints).
+        // Streaming upload chỉ nhận header: getParameter() sẽ khiến Tomcat parse và ghi tạm cả multipart body
+        else if (!MultipartConfig.isStreamingUpload(request)) {
+            final String tokenParam = request.getParameter("token");
+            if (tokenParam != null && !tokenParam.isEmpty()) {
+                jwt = tokenParam;
+            }
         }
         
         // Xử lý JWT token nếu có
@@ -54,20 +68,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
             
             try {
-                username = jwtUtil.extractUsername(jwt);
+                verified = jwtUtil.verify(jwt);
             } catch (Exception e) {
-                logger.error("Cannot extract username from JWT Token: " + e.getMessage(), e);
+                logger.error("Cannot verify JWT Token: " + e.getMessage(), e);
                 filterChain.doFilter(request, response);
                 return;
             }
         }
         
-        // Xác thực user nếu có username và chưa được authenticate
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Xác thực user nếu token hợp lệ và chưa được authenticate; chữ ký và hạn đã được kiểm tra ở verify()
+        if (verified != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                if (!userSecurityVersions.isCurrent(verified.subject(), verified.securityVersion())) {
+                    logger.warn("JWT Token revoked for user: " + verified.subject());
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                
+                // Stateless mode trusts the signed claims; tokens issued before the roles claim still hit MongoDB
+                UserDetails userDetails = statelessPrincipal && verified.roles() != null
+                    ? toPrincipal(verified)
+                    : this.userDetailsService.loadUserByUsername(verified.subject());
                 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (verified.subject().equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
                         new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
@@ -82,4 +105,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    private static UserDetails toPrincipal(VerifiedToken verified) {
+        return User.withUsername(verified.subject())
+            .password("")
+            .authorities(verified.roles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList())
+            .build();
+    }
 }
\ No newline at end of file
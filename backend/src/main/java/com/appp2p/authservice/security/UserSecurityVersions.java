@@ -0,0 +1,117 @@
+package com.appp2p.authservice.security;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.appp2p.authservice.cache.CacheInvalidationBus;
+import com.appp2p.authservice.model.User;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Security version của các user, giữ trong bộ nhớ để kiểm tra token mà không cần đọc MongoDB mỗi request.
+ * Chỉ user từng bị tăng version (đổi mật khẩu, bị khóa) mới có trong map, nên map nhỏ.
+ * Node tăng version báo cho các node khác qua CacheInvalidationBus; việc làm mới định kỳ chỉ đọc
+ * các user đổi version gần đây, phòng khi lỡ tín hiệu.
+ */
+@Component
+public class UserSecurityVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSecurityVersions.class);
+
+    public static final String CHANNEL = "user-security-versions";
+
+    // Overlap between refreshes, covering clock skew between replicas
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime refreshedAt;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(CHANNEL, email -> {
+            if (email == null) {
+                refreshedAt = null;
+                refresh();
+            } else {
+                reload(email);
+            }
+        });
+    }
+
+    /**
+     * Token hợp lệ nếu version trong token không cũ hơn version hiện tại của user.
+     */
+    public boolean isCurrent(String email, long tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(email, 0L);
+    }
+
+    /**
+     * Tăng version, làm mọi token đã cấp cho user mất hiệu lực.
+     */
+    public void bump(String email) {
+        User updated = mongoTemplate.findAndModify(
+            new Query(Criteria.where("email").is(email)),
+            new Update().inc("securityVersion", 1).set("securityVersionAt", LocalDateTime.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            User.class
+        );
+        if (updated == null) {
+            return;
+        }
+        versions.merge(email, updated.getSecurityVersion(), Math::max);
+        invalidationBus.publish(CHANNEL, email);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.versions.refresh-interval:60000}",
+               initialDelayString = "${app.security.versions.refresh-interval:60000}")
+    public void refresh() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = refreshedAt;
+        // The first load takes every user ever bumped; later ones only the recent changes
+        Criteria changed = since == null
+            ? Criteria.where("securityVersionAt").exists(true)
+            : Criteria.where("securityVersionAt").gt(since.minus(REFRESH_OVERLAP));
+        Query query = new Query(changed);
+        query.fields().include("email", "securityVersion");
+        try {
+            for (User user : mongoTemplate.find(query, User.class)) {
+                versions.merge(user.getEmail(), user.getSecurityVersion(), Math::max);
+            }
+            refreshedAt = startedAt;
+        } catch (Exception e) {
+            log.warn("Không thể làm mới security version: {}", e.getMessage());
+        }
+    }
+
+    private void reload(String email) {
+        Query query = new Query(Criteria.where("email").is(email));
+        query.fields().include("email", "securityVersion");
+        User user = mongoTemplate.findOne(query, User.class);
+        if (user != null) {
+            versions.merge(email, user.getSecurityVersion(), Math::max);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.appp2p.authservice.service;
 
+import com.appp2p.authservice.cache.UserDetailsCache;
 import com.appp2p.authservice.dto.*;
+import com.appp2p.authservice.exception.PasswordHashingBusyException;
 import com.appp2p.authservice.model.PasswordResetToken;
 import com.appp2p.authservice.model.User;
 import com.appp2p.authservice.repository.PasswordResetTokenRepository;
 import com.appp2p.authservice.repository.UserRepository;
+import com.appp2p.authservice.security.UserSecurityVersions;
 import com.appp2p.authservice.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,6 +44,12 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
     
+    @Autowired
+    private UserSecurityVersions userSecurityVersions;
+    
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
     public ApiResponse<AuthResponse> login(LoginRequest request) {
         try {
             // Authenticate user
@@ -48,9 +57,8 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
             );
             
-            // Get user details
-            User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+            // The provider already loaded the user
+            User user = (User) authentication.getPrincipal();
             
             // Generate JWT token
             String token = jwtUtil.generateToken(user);
@@ -70,7 +78,13 @@ public class AuthService {
             return ApiResponse.success("Đăng nhập thành công", authResponse);
             
         } catch (AuthenticationException e) {
+            // The provider wraps errors from the unknown-user path
+            if (e.getCause() instanceof PasswordHashingBusyException busy) {
+                throw busy;
+            }
             return ApiResponse.error("Email hoặc mật khẩu không chính xác");
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ApiResponse.error("Đã xảy ra lỗi trong quá trình đăng nhập");
         }
@@ -97,7 +111,7 @@ public class AuthService {
             
             userRepository.save(user);
             
-            // Send welcome email
+            // Queue welcome email
             try {
                 emailService.sendWelcomeEmail(user.getEmail(), user.getFirstName());
             } catch (Exception e) {
@@ -107,6 +121,8 @@ public class AuthService {
             
             return ApiResponse.success("Đăng ký tài khoản thành công");
             
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ApiResponse.error("Đã xảy ra lỗi trong quá trình đăng ký");
         }
@@ -133,7 +149,7 @@ public class AuthService {
             PasswordResetToken passwordResetToken = new PasswordResetToken(resetToken, request.getEmail());
             passwordResetTokenRepository.save(passwordResetToken);
             
-            // Send reset email
+            // Queue reset email
             emailService.sendPasswordResetEmail(request.getEmail(), resetToken);
             
             return ApiResponse.success("Chúng tôi đã gửi link đặt lại mật khẩu đến email của bạn");
@@ -178,12 +194,18 @@ public class AuthService {
             user.setPassword(passwordEncoder.encode(request.getNewPassword()));
             userRepository.save(user);
             
+            // Revoke tokens issued with the old password
+            userSecurityVersions.bump(user.getEmail());
+            userDetailsCache.invalidate(user.getEmail());
+            
             // Mark token as used
             resetToken.setUsed(true);
             passwordResetTokenRepository.save(resetToken);
             
             return ApiResponse.success("Đặt lại mật khẩu thành công");
             
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ApiResponse.error("Đã xảy ra lỗi trong quá trình đặt lại mật khẩu");
         }
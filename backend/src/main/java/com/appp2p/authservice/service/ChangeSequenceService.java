@@ -0,0 +1,165 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.model.ChangeSequence;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.FileTombstone;
+
+/**
+ * Cấp số thứ tự thay đổi theo từng user và ghi tombstone cho file bị xóa, phục vụ đồng bộ delta.
+ */
+@Service
+public class ChangeSequenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSequenceService.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    @Qualifier("backgroundTaskExecutor")
+    private ThreadPoolTaskExecutor backgroundTaskExecutor;
+
+    @Value("${app.sync.tombstone-retention:2592000000}")
+    private long tombstoneRetentionMillis;
+
+    public long next(String userEmail) {
+        return reserve(userEmail, 1);
+    }
+
+    /**
+     * Lấy {@code count} số liên tiếp bằng một lệnh $inc.
+     *
+     * @return số đầu tiên của khoảng
+     */
+    public long reserve(String userEmail, int count) {
+        Query query = new Query(Criteria.where("_id").is(userEmail));
+        Update update = new Update().inc("seq", count);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        ChangeSequence sequence;
+        try {
+            sequence = mongoTemplate.findAndModify(query, update, options, ChangeSequence.class);
+        } catch (DuplicateKeyException e) {
+            // First change of a user raced on the upsert; the document exists now
+            sequence = mongoTemplate.findAndModify(query, update, options, ChangeSequence.class);
+        }
+        return sequence.getSeq() - count + 1;
+    }
+
+    public ChangeSequence get(String userEmail) {
+        return mongoTemplate.findById(userEmail, ChangeSequence.class);
+    }
+
+    public void recordDeleted(String userEmail, List<String> fileIds) {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+        long seq = reserve(userEmail, fileIds.size());
+        List<FileTombstone> tombstones = new ArrayList<>(fileIds.size());
+        for (String fileId : fileIds) {
+            tombstones.add(new FileTombstone(fileId, userEmail, seq++));
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileTombstone.class).insert(tombstones).execute();
+        } catch (BulkOperationException e) {
+            // A concurrent delete of the same file already left its tombstone
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Xóa tombstone quá hạn. Client có con trỏ cũ hơn tombstone đã xóa sẽ được yêu cầu đồng bộ lại từ đầu.
+     */
+    @Scheduled(cron = "${app.sync.prune-cron:0 15 4 * * *}")
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(tombstoneRetentionMillis));
+        Criteria expired = Criteria.where("deletedAt").lt(cutoff);
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(expired),
+            Aggregation.group("uploadedBy").max("changeSeq").as("maxSeq")
+        );
+        List<Document> perUser = mongoTemplate.aggregate(aggregation, FileTombstone.class, Document.class).getMappedResults();
+        if (perUser.isEmpty()) {
+            return;
+        }
+        // Record the horizon first, so a cursor is never silently missing a delete
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChangeSequence.class);
+        for (Document user : perUser) {
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(user.getString("_id"))),
+                new Update().max("prunedThroughSeq", user.get("maxSeq", Number.class).longValue())
+            );
+        }
+        bulk.execute();
+        long removed = mongoTemplate.remove(new Query(expired), FileTombstone.class).getDeletedCount();
+        log.info("Đã xóa {} tombstone quá hạn của {} user", removed, perUser.size());
+    }
+
+    /**
+     * Cấp số thay đổi cho các file có từ trước khi có đồng bộ delta. Chạy một lần, ở background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChangeSeq() {
+        backgroundTaskExecutor.execute(() -> {
+            try {
+                long updated = 0;
+                Query missing = new Query(Criteria.where("changeSeq").exists(false)).limit(BACKFILL_BATCH_SIZE);
+                missing.fields().include("uploadedBy", "uploadedAt");
+                List<FileMetadata> batch;
+                while (!(batch = mongoTemplate.find(missing, FileMetadata.class)).isEmpty()) {
+                    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class);
+                    Map<String, List<FileMetadata>> byUser = batch.stream()
+                        .collect(Collectors.groupingBy(FileMetadata::getUploadedBy));
+                    for (Map.Entry<String, List<FileMetadata>> entry : byUser.entrySet()) {
+                        long seq = reserve(entry.getKey(), entry.getValue().size());
+                        for (FileMetadata metadata : entry.getValue()) {
+                            bulk.updateOne(
+                                new Query(Criteria.where("_id").is(metadata.getId()).and("changeSeq").exists(false)),
+                                new Update().set("changeSeq", seq++).set("changedAt", metadata.getUploadedAt())
+                            );
+                        }
+                    }
+                    updated += bulk.execute().getModifiedCount();
+                }
+                if (updated > 0) {
+                    log.info("Đã cấp số thay đổi cho {} file cũ", updated);
+                }
+            } catch (Exception e) {
+                log.warn("Không thể cấp số thay đổi cho file cũ: {}", e.getMessage());
+            }
+        });
+    }
+}
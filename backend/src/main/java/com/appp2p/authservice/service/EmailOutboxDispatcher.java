@@ -0,0 +1,183 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.model.EmailOutboxMessage;
+
+/**
+ * Gửi email trong outbox theo lô. Mỗi lô được giữ (claim) bằng một lệnh updateMany nên nhiều replica chạy
+ * song song không gửi trùng; lô bị bỏ dở khi node chết sẽ được gửi lại sau khi hết lease (at-least-once).
+ * Lỗi thì thử lại với backoff tăng dần; quá số lần cho phép thì chuyển sang DEAD để xem xét thủ công.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.retry-base:30000}")
+    private long retryBaseMillis;
+
+    @Value("${app.mail.outbox.retry-max:3600000}")
+    private long retryMaxMillis;
+
+    @Value("${app.mail.outbox.lease:300000}")
+    private long leaseMillis;
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:2000}")
+    public void dispatch() {
+        try {
+            // Drain the backlog, one SMTP connection per batch
+            int dispatched;
+            do {
+                dispatched = dispatchBatch();
+            } while (dispatched == batchSize);
+        } catch (Exception e) {
+            log.warn("Không thể xử lý outbox email: {}", e.getMessage());
+        }
+    }
+
+    private int dispatchBatch() {
+        List<EmailOutboxMessage> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> failures = send(mailSender, batch);
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailOutboxMessage.class);
+        for (EmailOutboxMessage message : batch) {
+            Query owned = new Query(Criteria.where("_id").is(message.getId()).and("claimId").is(message.getClaimId()));
+            String error = failures.get(message.getId());
+            Update update = new Update().unset("claimId").unset("lockedUntil");
+            if (error == null) {
+                update.set("status", EmailOutboxMessage.STATUS_SENT).set("sentAt", now).unset("lastError");
+            } else {
+                int attempts = message.getAttempts() + 1;
+                update.set("attempts", attempts).set("lastError", truncate(error));
+                if (attempts >= maxAttempts) {
+                    update.set("status", EmailOutboxMessage.STATUS_DEAD);
+                    log.warn("Bỏ email {} tới {} sau {} lần gửi lỗi: {}", message.getId(), message.getTo(), attempts, error);
+                } else {
+                    update.set("status", EmailOutboxMessage.STATUS_PENDING).set("nextAttemptAt", now.plus(backoff(attempts)));
+                }
+            }
+            bulk.updateOne(owned, update);
+        }
+        bulk.execute();
+        return batch.size();
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria due = new Criteria().orOperator(
+            Criteria.where("status").is(EmailOutboxMessage.STATUS_PENDING).and("nextAttemptAt").lte(now),
+            Criteria.where("status").is(EmailOutboxMessage.STATUS_SENDING).and("lockedUntil").lt(now)
+        );
+        Query candidates = new Query(due).with(Sort.by("nextAttemptAt")).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, EmailOutboxMessage.class).stream()
+            .map(EmailOutboxMessage::getId)
+            .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Re-checking "due" makes the claim atomic per message against other dispatchers
+        String claimId = new ObjectId().toHexString();
+        mongoTemplate.updateMulti(
+            new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), due)),
+            new Update()
+                .set("status", EmailOutboxMessage.STATUS_SENDING)
+                .set("claimId", claimId)
+                .set("lockedUntil", now.plus(Duration.ofMillis(leaseMillis))),
+            EmailOutboxMessage.class
+        );
+        return mongoTemplate.find(new Query(Criteria.where("claimId").is(claimId)), EmailOutboxMessage.class);
+    }
+
+    /**
+     * Gửi cả lô qua một lần kết nối SMTP.
+     *
+     * @return lỗi theo id của các email không gửi được
+     */
+    static Map<String, String> send(JavaMailSender sender, List<EmailOutboxMessage> batch) {
+        Map<SimpleMailMessage, String> ids = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutboxMessage outbox = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(outbox.getTo());
+            message.setSubject(outbox.getSubject());
+            message.setText(outbox.getBody());
+            messages[i] = message;
+            ids.put(message, outbox.getId());
+        }
+
+        Map<String, String> failures = new HashMap<>();
+        try {
+            sender.send(messages);
+        } catch (MailSendException e) {
+            // Failed messages are keyed by the message object that was passed in
+            e.getFailedMessages().forEach((message, error) -> {
+                String id = ids.get(message);
+                if (id != null) {
+                    failures.put(id, error.getMessage());
+                }
+            });
+            if (failures.isEmpty()) {
+                batch.forEach(outbox -> failures.put(outbox.getId(), e.getMessage()));
+            }
+        } catch (MailException e) {
+            batch.forEach(outbox -> failures.put(outbox.getId(), e.getMessage()));
+        }
+        return failures;
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = retryBaseMillis << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, retryMaxMillis));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return "unknown";
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
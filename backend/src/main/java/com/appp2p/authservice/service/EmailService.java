@@ -1,16 +1,23 @@
 package com.appp2p.authservice.service;
 
+import com.appp2p.authservice.model.EmailOutboxMessage;
+import com.appp2p.authservice.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Soạn email và ghi vào outbox (một lần insert); EmailOutboxDispatcher gửi ở background.
+ */
 @Service
 public class EmailService {
     
     @Autowired
-    private JavaMailSender mailSender;
+    private MongoTemplate mongoTemplate;
     
     @Value("${app.name}")
     private String appName;
@@ -19,10 +26,6 @@ public class EmailService {
     private String frontendUrl;
     
     public void sendPasswordResetEmail(String toEmail, String resetToken) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(toEmail);
-        message.setSubject("Đặt lại mật khẩu - " + appName);
-        
         String resetUrl = frontendUrl + "/reset-password?token=" + resetToken;
         
         String emailContent = String.format(
@@ -37,21 +40,30 @@ public class EmailService {
             toEmail, resetUrl, appName
         );
         
-        message.setText(emailContent);
-        
-        try {
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Không thể gửi email: " + e.getMessage());
-        }
+        queue(toEmail, "Đặt lại mật khẩu - " + appName, emailContent);
     }
     
     public void sendWelcomeEmail(String toEmail, String firstName) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(toEmail);
-        message.setSubject("Chào mừng đến với " + appName);
-        
-        String emailContent = String.format(
+        queue(toEmail, "Chào mừng đến với " + appName, welcomeContent(toEmail, firstName));
+    }
+    
+    /**
+     * Xếp hàng email chào mừng cho nhiều user bằng một lần insert.
+     */
+    public void sendWelcomeEmails(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<EmailOutboxMessage> messages = new ArrayList<>(users.size());
+        for (User user : users) {
+            messages.add(new EmailOutboxMessage(user.getEmail(), "Chào mừng đến với " + appName,
+                welcomeContent(user.getEmail(), user.getFirstName())));
+        }
+        mongoTemplate.insertAll(messages);
+    }
+    
+    private String welcomeContent(String toEmail, String firstName) {
+        return String.format(
             "Xin chào %s,\n\n" +
             "Chào mừng bạn đến với %s!\n\n" +
             "Tài khoản của bạn đã được tạo thành công với email: %s\n\n" +
@@ -60,14 +72,9 @@ public class EmailService {
             "Đội ngũ %s",
             firstName != null ? firstName : "bạn", appName, toEmail, appName
         );
-        
-        message.setText(emailContent);
-        
-        try {
-            mailSender.send(message);
-        } catch (Exception e) {
-            // Log error but don't throw exception for welcome email
-            System.err.println("Không thể gửi email chào mừng: " + e.getMessage());
-        }
+    }
+    
+    private void queue(String toEmail, String subject, String body) {
+        mongoTemplate.insert(new EmailOutboxMessage(toEmail, subject, body));
     }
 }
\ No newline at end of file
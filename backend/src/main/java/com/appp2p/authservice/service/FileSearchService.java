@@ -0,0 +1,178 @@
+package com.appp2p.authservice.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.FileSearchResponse;
+import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.util.SearchTokenizer;
+
+/**
+ * Tìm file theo tên (tiền tố, chuỗi con, từ) trong phạm vi file của user.
+ * Index (uploadedBy, searchTokens) chọn ứng viên; ứng viên được kiểm tra lại trên tên thật rồi xếp hạng.
+ * Chỉ app.search.max-candidates file mới nhất được xếp hạng; khi bị cắt, response có truncated = true.
+ */
+@Service
+public class FileSearchService {
+    
+    private static final Logger log = LoggerFactory.getLogger(FileSearchService.class);
+    
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    @Qualifier("backgroundTaskExecutor")
+    private ThreadPoolTaskExecutor backgroundTaskExecutor;
+    
+    @Autowired
+    private FileService fileService;
+    
+    @Value("${app.search.max-candidates:2000}")
+    private int maxCandidates;
+    
+    @Value("${app.search.max-page-size:100}")
+    private int maxPageSize;
+    
+    public FileSearchResponse search(String userEmail, String queryText, String fileType, int page, int size) {
+        if (size <= 0 || size > maxPageSize) {
+            throw new IllegalArgumentException("Kích thước trang phải từ 1 đến " + maxPageSize);
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Số trang không hợp lệ");
+        }
+        String normalizedQuery = SearchTokenizer.normalize(queryText);
+        List<String> terms = SearchTokenizer.words(normalizedQuery);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Từ khóa tìm kiếm không được để trống");
+        }
+        
+        List<String> required = new ArrayList<>();
+        for (String term : terms) {
+            required.addAll(SearchTokenizer.queryTokens(term));
+        }
+        Criteria criteria = Criteria.where("uploadedBy").is(userEmail).and("searchTokens").all(required);
+        if (fileType != null) {
+            criteria = criteria.and("fileType").is(fileType);
+        }
+        // Newest candidates win when a very common term matches more than maxCandidates files.
+        // Ranking only needs the name, so candidates carry nothing else.
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Order.desc("uploadedAt")))
+            .limit(maxCandidates + 1);
+        query.fields().include("originalFileName", "uploadedAt");
+        List<FileMetadata> candidates = mongoTemplate.find(query, FileMetadata.class);
+        boolean truncated = candidates.size() > maxCandidates;
+        if (truncated) {
+            candidates = candidates.subList(0, maxCandidates);
+        }
+        
+        List<Match> matches = new ArrayList<>();
+        for (FileMetadata candidate : candidates) {
+            int score = score(SearchTokenizer.normalize(candidate.getOriginalFileName()), normalizedQuery, terms);
+            if (score > 0) {
+                matches.add(new Match(candidate.getId(), score));
+            }
+        }
+        // Stable sort keeps newest first among equal scores
+        matches.sort(Comparator.comparingInt(Match::score).reversed());
+        
+        int from = Math.min(page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        List<String> pageIds = matches.subList(from, to).stream().map(Match::fileId).collect(Collectors.toList());
+        
+        // Full documents for this page only, put back in rank order
+        Query pageQuery = new Query(Criteria.where("_id").in(pageIds));
+        pageQuery.fields().exclude("searchTokens");
+        Map<String, FileMetadata> byId = mongoTemplate.find(pageQuery, FileMetadata.class).stream()
+            .collect(Collectors.toMap(FileMetadata::getId, metadata -> metadata));
+        List<FileUploadResponse> files = pageIds.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull) // deleted in between
+            .map(fileService::convertToResponse)
+            .collect(Collectors.toList());
+        
+        FileSearchResponse response = new FileSearchResponse(files, page, size, to < matches.size());
+        response.setTruncated(truncated);
+        return response;
+    }
+    
+    /**
+     * Điểm liên quan; 0 nghĩa là không khớp (trigram khớp nhưng tên không chứa từ khóa).
+     */
+    static int score(String name, String normalizedQuery, List<String> terms) {
+        List<String> words = SearchTokenizer.words(name);
+        int score = 0;
+        for (String term : terms) {
+            if (words.contains(term)) {
+                score += 3;
+            } else if (words.stream().anyMatch(word -> word.startsWith(term))) {
+                score += 2;
+            } else if (name.contains(term)) {
+                score += 1;
+            } else {
+                return 0;
+            }
+        }
+        if (name.equals(normalizedQuery)) {
+            score += 5;
+        } else if (name.startsWith(normalizedQuery)) {
+            score += 2;
+        }
+        return score;
+    }
+    
+    /**
+     * Tạo searchTokens cho các file upload trước khi có tính năng tìm kiếm. Chạy một lần, ở background.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchTokens() {
+        backgroundTaskExecutor.execute(() -> {
+            try {
+                long updated = 0;
+                List<FileMetadata> batch;
+                Query missing = new Query(Criteria.where("searchTokens").exists(false)).limit(BACKFILL_BATCH_SIZE);
+                missing.fields().include("originalFileName");
+                while (!(batch = mongoTemplate.find(missing, FileMetadata.class)).isEmpty()) {
+                    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class);
+                    for (FileMetadata metadata : batch) {
+                        bulk.updateOne(
+                            new Query(Criteria.where("_id").is(metadata.getId())),
+                            new Update().set("searchTokens", SearchTokenizer.indexTokens(metadata.getOriginalFileName()))
+                        );
+                    }
+                    updated += bulk.execute().getModifiedCount();
+                }
+                if (updated > 0) {
+                    log.info("Đã tạo search token cho {} file", updated);
+                }
+            } catch (Exception e) {
+                log.warn("Không thể tạo search token cho file cũ: {}", e.getMessage());
+            }
+        });
+    }
+    
+    private record Match(String fileId, int score) {}
+}
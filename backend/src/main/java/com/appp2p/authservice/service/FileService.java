@@ -2,113 +2,659 @@ package com.appp2p.authservice.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.gridfs.GridFsOperations;
-import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.appp2p.authservice.cache.FileListingCache;
+import com.appp2p.authservice.dto.BatchUploadResult;
+import com.appp2p.authservice.dto.BulkDeleteRequest;
+import com.appp2p.authservice.dto.BulkDeleteResponse;
+import com.appp2p.authservice.dto.FilePageResponse;
 import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.exception.QuotaExceededException;
 import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.Folder;
+import com.appp2p.authservice.model.StoredBlob;
 import com.appp2p.authservice.repository.FileMetadataRepository;
-import com.mongodb.client.gridfs.model.GridFSFile;
+import com.appp2p.authservice.storage.BlobStore;
+import com.appp2p.authservice.storage.BlobStoreRegistry;
+import com.appp2p.authservice.util.CountingInputStream;
+import com.appp2p.authservice.util.LimitedInputStream;
+import com.appp2p.authservice.util.SearchTokenizer;
+import com.mongodb.client.result.UpdateResult;
 
 @Service
 public class FileService {
     
-    @Autowired
-    private GridFsTemplate gridFsTemplate;
+    private static final Logger log = LoggerFactory.getLogger(FileService.class);
+    
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    
+    // Insert outcome unknown, so nothing may be released
+    private static final String UNKNOWN_OUTCOME = "không xác định được kết quả";
     
     @Autowired
-    private GridFsOperations gridFsOperations;
+    private BlobStoreRegistry blobStoreRegistry;
     
     @Autowired
     private FileMetadataRepository fileMetadataRepository;
     
-    public FileUploadResponse uploadFile(MultipartFile file, String userEmail) throws IOException {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private FileListingCache fileListingCache;
+    
+    @Autowired
+    private StorageUsageService storageUsageService;
+    
+    @Autowired
+    private FolderService folderService;
+    
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+    
+    @Autowired
+    @Qualifier("batchUploadTaskExecutor")
+    private ThreadPoolTaskExecutor batchUploadTaskExecutor;
+    
+    @Value("${app.upload.batch.max-files:500}")
+    private int maxBatchFiles;
+    
+    @Value("${app.files.page.default-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.files.page.max-size:200}")
+    private int maxPageSize;
+    
+    @Value("${app.files.list.legacy-limit:1000}")
+    private int legacyListLimit;
+    
+    @Value("${app.files.bulk-delete.max-ids:1000}")
+    private int maxBulkDeleteIds;
+    
+    @Value("${app.files.bulk-delete.batch-size:500}")
+    private int bulkDeleteBatchSize;
+    
+    /**
+     * Upload một file. Nếu client gửi kèm SHA-256 của nội dung và blob đó đã có, nội dung chỉ được đọc để kiểm tra,
+     * không ghi lại vào storage.
+     */
+    public FileUploadResponse uploadFile(MultipartFile file, String folderId, String declaredHash, String userEmail) throws IOException {
         // Validate file
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File không được để trống");
         }
+        Folder folder = folderId != null ? folderService.getOwnedFolder(folderId, userEmail) : null;
+        
+        // Reject before any byte reaches storage
+        storageUsageService.checkQuota(userEmail, file.getSize());
         
         // Generate unique filename
         String originalFileName = file.getOriginalFilename();
-        String fileName = UUID.randomUUID().toString() + "_" + originalFileName;
+        String fileName = generateStoredFileName(originalFileName);
         
-        // Determine file type
-        String fileType = determineFileType(file.getContentType());
+        // Store file in the active backend (or reuse an identical blob)
+        StoredContent content = storeContent(file.getInputStream(), fileName, file.getContentType(), declaredHash);
         
-        // Store file in GridFS
-        ObjectId gridFsId = gridFsTemplate.store(
-            file.getInputStream(),
-            fileName,
-            file.getContentType()
-        );
+        return saveMetadata(fileName, originalFileName, file.getContentType(), content.size(),
+                            content.blobId(), content.storageBackend(), content.contentHash(), folder, userEmail);
+    }
+    
+    /**
+     * Upload từ một stream chưa biết trước kích thước (multipart streaming), không cần file tạm
+     */
+    public FileUploadResponse uploadFileStream(InputStream inputStream, String originalFileName, String contentType,
+                                               String declaredHash, String userEmail) throws IOException {
+        if (originalFileName == null || originalFileName.isBlank()) {
+            throw new IllegalArgumentException("Tên file không được để trống");
+        }
+        // Size is unknown here, so stop reading as soon as the upload outgrows what is left of the quota.
+        // The conditional $inc before the metadata save still settles concurrent uploads.
+        long remaining = storageUsageService.remainingQuota(userEmail);
+        InputStream limited = new LimitedInputStream(inputStream, remaining);
+        
+        String fileName = generateStoredFileName(originalFileName);
+        StoredContent content;
+        try {
+            content = storeContent(limited, fileName, contentType, declaredHash);
+        } catch (IOException | RuntimeException e) {
+            // The overflow is an IOException so the backend discards what it wrote; GridFS wraps it
+            if (LimitedInputStream.isLimitExceeded(e)) {
+                throw new QuotaExceededException("Vượt quá dung lượng cho phép");
+            }
+            throw e;
+        }
+        
+        return saveMetadata(fileName, originalFileName, contentType, content.size(),
+                            content.blobId(), content.storageBackend(), content.contentHash(), userEmail);
+    }
+    
+    /**
+     * Upload nhiều file trong một request: nội dung được ghi song song trên pool có giới hạn,
+     * rồi toàn bộ metadata được insert bằng một lệnh bulk không theo thứ tự. Kết quả trả về theo thứ tự file gửi lên.
+     */
+    public List<BatchUploadResult> uploadFiles(List<MultipartFile> files, String folderId, String userEmail) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("Không có file nào để tải lên");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new IllegalArgumentException("Mỗi lần chỉ được tải lên tối đa " + maxBatchFiles + " file");
+        }
+        storageUsageService.checkQuota(userEmail, files.stream().mapToLong(MultipartFile::getSize).sum());
+        Folder folder = folderId != null ? folderService.getOwnedFolder(folderId, userEmail) : null;
+        
+        List<Future<FileMetadata>> pending = new ArrayList<>();
+        for (MultipartFile file : files) {
+            pending.add(batchUploadTaskExecutor.submit(() -> {
+                if (file.isEmpty()) {
+                    throw new IllegalArgumentException("File không được để trống");
+                }
+                String fileName = generateStoredFileName(file.getOriginalFilename());
+                StoredContent content = storeContent(file.getInputStream(), fileName, file.getContentType(), null);
+                FileMetadata metadata = newMetadata(fileName, file.getOriginalFilename(), file.getContentType(), content.size(),
+                                   content.blobId(), content.storageBackend(), content.contentHash(), userEmail);
+                return metadata;
+            }));
+        }
+        
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        List<FileMetadata> stored = new ArrayList<>();
+        List<Integer> storedIndexes = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            String originalFileName = files.get(i).getOriginalFilename();
+            try {
+                FileMetadata metadata = pending.get(i).get();
+                if (reserveUsage(metadata)) {
+                    stored.add(metadata);
+                    storedIndexes.add(i);
+                } else {
+                    results[i] = BatchUploadResult.failure(originalFileName, "Vượt quá dung lượng cho phép");
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results[i] = BatchUploadResult.failure(originalFileName, cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results[i] = BatchUploadResult.failure(originalFileName, "Upload bị gián đoạn");
+            }
+        }
+        
+        if (!stored.isEmpty()) {
+            long seq = changeSequenceService.reserve(userEmail, stored.size());
+            // The folder was read before the contents were written and may have moved since
+            Folder current = folder != null ? folderService.refresh(folder) : null;
+            for (FileMetadata metadata : stored) {
+                placeInFolder(metadata, current);
+                // Bulk inserts do not write generated ids back, so assign them up front
+                metadata.setId(new ObjectId().toHexString());
+                stampChange(metadata, seq++);
+            }
+            Map<Integer, String> rejected = insertAll(stored);
+            for (int j = 0; j < stored.size(); j++) {
+                FileMetadata metadata = stored.get(j);
+                int index = storedIndexes.get(j);
+                String error = rejected.get(j);
+                if (error != null) {
+                    if (!UNKNOWN_OUTCOME.equals(error)) {
+                        releaseUsageAndBlob(metadata);
+                    }
+                    results[index] = BatchUploadResult.failure(files.get(index).getOriginalFilename(),
+                        "Lỗi khi lưu metadata: " + error);
+                } else {
+                    afterSave(metadata);
+                    results[index] = BatchUploadResult.success(convertToResponse(metadata));
+                }
+            }
+            if (current != null) {
+                folderService.settleFilePaths(current, userEmail);
+            }
+            fileListingCache.invalidate(userEmail);
+        }
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Insert không theo thứ tự: một document lỗi không chặn các document còn lại.
+     *
+     * @return lỗi theo vị trí trong danh sách của các document không được insert
+     */
+    Map<Integer, String> insertAll(List<FileMetadata> documents) {
+        Map<Integer, String> rejected = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> rejected.put(error.getIndex(), error.getMessage()));
+        } catch (RuntimeException e) {
+            // No per-document result (e.g. connection lost): look up what actually got written
+            List<String> ids = documents.stream().map(FileMetadata::getId).collect(Collectors.toList());
+            Query written = new Query(Criteria.where("_id").in(ids));
+            written.fields().include("_id");
+            try {
+                Set<String> found = mongoTemplate.find(written, FileMetadata.class).stream()
+                    .map(FileMetadata::getId)
+                    .collect(Collectors.toSet());
+                for (int i = 0; i < documents.size(); i++) {
+                    if (!found.contains(documents.get(i).getId())) {
+                        rejected.put(i, e.getMessage());
+                    }
+                }
+            } catch (RuntimeException lookupFailure) {
+                // Releasing blobs that may be referenced is worse than leaking them; the reconcile jobs repair both
+                log.warn("Không xác định được metadata nào đã được lưu: {}", lookupFailure.getMessage());
+                for (int i = 0; i < documents.size(); i++) {
+                    rejected.put(i, UNKNOWN_OUTCOME);
+                }
+            }
+        }
+        return rejected;
+    }
+    
+    /**
+     * Ghi metadata cho một blob đã nằm trong storage (upload thường hoặc upload theo chunk)
+     */
+    public FileUploadResponse saveMetadata(String fileName, String originalFileName, String contentType,
+                                           long fileSize, String blobId, String storageBackend,
+                                           String contentHash, String userEmail) {
+        return saveMetadata(fileName, originalFileName, contentType, fileSize, blobId, storageBackend,
+                            contentHash, null, userEmail);
+    }
+    
+    private FileUploadResponse saveMetadata(String fileName, String originalFileName, String contentType,
+                                            long fileSize, String blobId, String storageBackend,
+                                            String contentHash, Folder folder, String userEmail) {
+        FileMetadata metadata = newMetadata(
+            fileName, originalFileName, contentType, fileSize, blobId, storageBackend, contentHash, userEmail);
+        // The folder was read before the upload started and may have moved since
+        Folder current = folder != null ? folderService.refresh(folder) : null;
+        placeInFolder(metadata, current);
+        stampChange(metadata, changeSequenceService.next(userEmail));
+        if (!reserveUsage(metadata)) {
+            throw new QuotaExceededException("Vượt quá dung lượng cho phép");
+        }
+        try {
+            metadata = fileMetadataRepository.save(metadata);
+        } catch (RuntimeException e) {
+            releaseUsageAndBlob(metadata);
+            throw e;
+        }
+        afterSave(metadata);
+        if (current != null) {
+            folderService.settleFilePaths(current, userEmail);
+        }
+        fileListingCache.invalidate(userEmail);
+        
+        // Create response
+        return convertToResponse(metadata);
+    }
+    
+    private FileMetadata newMetadata(String fileName, String originalFileName, String contentType,
+                                     long fileSize, String blobId, String storageBackend,
+                                     String contentHash, String userEmail) {
+        // Determine file type
+        String fileType = determineFileType(contentType);
         
-        // Save metadata
         FileMetadata metadata = new FileMetadata(
             fileName,
             originalFileName,
-            file.getContentType(),
-            file.getSize(),
-            gridFsId.toString(),
+            contentType,
+            fileSize,
+            blobId,
             userEmail,
             fileType
         );
+        metadata.setStorageBackend(storageBackend);
+        metadata.setContentHash(contentHash);
+        metadata.setSearchTokens(SearchTokenizer.indexTokens(originalFileName));
+        if ("IMAGE".equals(fileType)) {
+            metadata.setThumbnailStatus(ThumbnailService.STATUS_PENDING);
+        }
+        return metadata;
+    }
+    
+    private static void stampChange(FileMetadata metadata, long changeSeq) {
+        metadata.setChangeSeq(changeSeq);
+        metadata.setChangedAt(LocalDateTime.now());
+    }
+    
+    private void placeInFolder(FileMetadata metadata, Folder folder) {
+        metadata.setFolderId(folder != null ? folder.getId() : null);
+        metadata.setFolderPath(folder != null ? folder.getPath() : null);
+    }
+    
+    /**
+     * Cộng file vào dung lượng của user. Nếu vượt quota thì bỏ blob vừa ghi.
+     *
+     * @return false nếu vượt quota
+     */
+    private boolean reserveUsage(FileMetadata metadata) {
+        try {
+            storageUsageService.recordAdded(metadata.getUploadedBy(), metadata.getFileType(), metadata.getFileSize());
+            return true;
+        } catch (QuotaExceededException e) {
+            releaseBlob(metadata);
+            return false;
+        }
+    }
+    
+    private void releaseUsageAndBlob(FileMetadata metadata) {
+        storageUsageService.recordRemoved(metadata.getUploadedBy(), metadata.getFileType(), metadata.getFileSize());
+        releaseBlob(metadata);
+    }
+    
+    private void afterSave(FileMetadata metadata) {
+        if ("IMAGE".equals(metadata.getFileType())) {
+            thumbnailService.requestThumbnails(metadata);
+        }
+    }
+    
+    /**
+     * Stream nội dung vào backend đang dùng và tính SHA-256 cùng lúc. Nếu đã có blob trùng nội dung,
+     * blob vừa ghi bị xóa và blob cũ được dùng lại (tăng refCount).
+     * <p>
+     * Khi client khai báo SHA-256 và blob đó đã tồn tại, không có gì được ghi: nội dung chỉ được đọc để
+     * kiểm tra hash và kích thước. Hash khai báo sai luôn bị từ chối.
+     */
+    StoredContent storeContent(InputStream inputStream, String fileName, String contentType,
+                               String declaredHash) throws IOException {
+        String expectedHash = normalizeHash(declaredHash);
+        if (expectedHash != null) {
+            // Holding a reference while reading keeps the blob from being deleted underneath us
+            StoredBlob existing = acquireExistingBlob(expectedHash);
+            if (existing != null) {
+                try {
+                    verifyContent(inputStream, expectedHash, existing.getSize());
+                } catch (IOException | RuntimeException e) {
+                    releaseBlob(expectedHash, existing.getStorageBackend(), existing.getGridFsId());
+                    throw e;
+                }
+                return new StoredContent(existing.getGridFsId(), existing.getStorageBackend(), existing.getSize(), expectedHash);
+            }
+        }
         
-        metadata = fileMetadataRepository.save(metadata);
+        MessageDigest digest = newSha256();
+        CountingInputStream countingStream = new CountingInputStream(new DigestInputStream(inputStream, digest));
         
-        // Create response
-        return new FileUploadResponse(
-            metadata.getId(),
-            metadata.getFileName(),
-            metadata.getOriginalFileName(),
-            metadata.getContentType(),
-            metadata.getFileSize(),
-            metadata.getFileType(),
-            metadata.getUploadedAt(),
-            "/api/files/download/" + metadata.getId()
+        BlobStore blobStore = blobStoreRegistry.getActive();
+        String blobId = blobStore.store(countingStream, fileName, contentType);
+        
+        if (countingStream.getCount() == 0) {
+            blobStore.delete(blobId);
+            throw new IllegalArgumentException("File không được để trống");
+        }
+        
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        if (expectedHash != null && !expectedHash.equals(contentHash)) {
+            blobStore.delete(blobId);
+            throw new IllegalArgumentException("Nội dung file không khớp với SHA-256 đã khai báo");
+        }
+        StoredBlob blob = acquireBlob(contentHash, blobId, blobStore.getName(), countingStream.getCount());
+        if (!blob.getGridFsId().equals(blobId)) {
+            // Identical content already stored (possibly in another backend), drop the copy we just wrote
+            blobStore.delete(blobId);
+        }
+        
+        return new StoredContent(blob.getGridFsId(), blob.getStorageBackend(), countingStream.getCount(), contentHash);
+    }
+    
+    /**
+     * Đọc hết stream mà không ghi đi đâu, chỉ để kiểm tra nội dung đúng với blob đã có.
+     */
+    private static void verifyContent(InputStream inputStream, String expectedHash, long expectedSize) throws IOException {
+        MessageDigest digest = newSha256();
+        CountingInputStream countingStream = new CountingInputStream(new DigestInputStream(inputStream, digest));
+        countingStream.transferTo(OutputStream.nullOutputStream());
+        if (countingStream.getCount() != expectedSize
+                || !expectedHash.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new IllegalArgumentException("Nội dung file không khớp với SHA-256 đã khai báo");
+        }
+    }
+    
+    private static String normalizeHash(String declaredHash) {
+        if (declaredHash == null || declaredHash.isBlank()) {
+            return null;
+        }
+        String hash = declaredHash.trim().toLowerCase(Locale.ROOT);
+        if (!SHA256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("SHA-256 phải là 64 ký tự hex");
+        }
+        return hash;
+    }
+    
+    StoredBlob acquireBlob(String contentHash, String blobId, String storageBackend, long size) {
+        Query query = new Query(Criteria.where("contentHash").is(contentHash));
+        Update update = new Update()
+            .inc("refCount", 1)
+            .set("lastAcquiredAt", LocalDateTime.now())
+            .setOnInsert("gridFsId", blobId)
+            .setOnInsert("storageBackend", storageBackend)
+            .setOnInsert("size", size)
+            .setOnInsert("createdAt", LocalDateTime.now());
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, StoredBlob.class);
+        } catch (DuplicateKeyException e) {
+            // Two uploads of the same content raced on the upsert; the loser now finds the winner's document
+            return mongoTemplate.findAndModify(query, update, options, StoredBlob.class);
+        }
+    }
+    
+    /**
+     * Tăng refCount của blob đã có, không tạo mới.
+     *
+     * @return null nếu chưa có blob với hash này
+     */
+    private StoredBlob acquireExistingBlob(String contentHash) {
+        return mongoTemplate.findAndModify(
+            new Query(Criteria.where("contentHash").is(contentHash)),
+            new Update().inc("refCount", 1).set("lastAcquiredAt", LocalDateTime.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            StoredBlob.class
+        );
+    }
+    
+    /**
+     * Giảm refCount và chỉ xóa blob khỏi storage khi không còn file nào tham chiếu.
+     */
+    void releaseBlob(FileMetadata metadata) {
+        releaseBlob(metadata.getContentHash(), metadata.getStorageBackend(), metadata.getGridFsId());
+    }
+    
+    private void releaseBlob(String contentHash, String storageBackend, String blobId) {
+        if (contentHash == null) {
+            // Blob was never shared
+            deleteBlob(storageBackend, blobId);
+            return;
+        }
+        
+        Query byHash = new Query(Criteria.where("contentHash").is(contentHash));
+        StoredBlob blob = mongoTemplate.findAndModify(
+            byHash,
+            new Update().inc("refCount", -1),
+            FindAndModifyOptions.options().returnNew(true),
+            StoredBlob.class
         );
+        if (blob == null) {
+            deleteBlob(storageBackend, blobId);
+            return;
+        }
+        if (blob.getRefCount() <= 0) {
+            // A concurrent upload may have re-acquired the blob in between, so only delete while still unreferenced
+            Query unreferenced = new Query(Criteria.where("contentHash").is(contentHash).and("refCount").lte(0));
+            if (mongoTemplate.remove(unreferenced, StoredBlob.class).getDeletedCount() > 0) {
+                deleteBlob(blob.getStorageBackend(), blob.getGridFsId());
+            }
+        }
+    }
+    
+    private void deleteBlob(String storageBackend, String blobId) {
+        blobStoreRegistry.get(storageBackend).delete(blobId);
     }
     
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+    
+    public String generateStoredFileName(String originalFileName) {
+        return UUID.randomUUID().toString() + "_" + originalFileName;
+    }
+    
+    /**
+     * Danh sách file không phân trang, giữ cho client cũ. Chỉ trả về tối đa app.files.list.legacy-limit file mới nhất.
+     */
     public List<FileUploadResponse> getUserFiles(String userEmail) {
-        List<FileMetadata> files = fileMetadataRepository.findByUploadedByOrderByUploadedAtDesc(userEmail);
-        return files.stream()
+        return fileListingCache.get(userEmail, null, () -> findPage(userEmail, null, null, legacyListLimit).stream()
             .map(this::convertToResponse)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
     
     public List<FileUploadResponse> getUserFilesByType(String userEmail, String fileType) {
-        List<FileMetadata> files = fileMetadataRepository.findByFileTypeAndUploadedByOrderByUploadedAtDesc(fileType, userEmail);
-        return files.stream()
+        return fileListingCache.get(userEmail, fileType, () -> findPage(userEmail, fileType, null, legacyListLimit).stream()
             .map(this::convertToResponse)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
     
-    public InputStream downloadFile(String fileId) throws IOException {
-        Optional<FileMetadata> metadataOpt = fileMetadataRepository.findById(fileId);
-        if (metadataOpt.isEmpty()) {
-            throw new IllegalArgumentException("File không tồn tại");
+    /**
+     * Phân trang theo keyset (uploadedAt, id), mới nhất trước. Mỗi trang là một lần quét index,
+     * không phụ thuộc trang đang ở sâu bao nhiêu.
+     */
+    public FilePageResponse getUserFilesPage(String userEmail, String fileType, String cursor, Integer size) {
+        Criteria criteria = Criteria.where("uploadedBy").is(userEmail);
+        if (fileType != null) {
+            criteria = criteria.and("fileType").is(fileType);
+        }
+        return findPage(criteria, cursor, size);
+    }
+    
+    /**
+     * File nằm trực tiếp trong một thư mục (folderId null là cấp cao nhất), cùng kiểu phân trang với getUserFilesPage.
+     */
+    public FilePageResponse getFolderFilesPage(String userEmail, String folderId, String cursor, Integer size) {
+        if (folderId != null) {
+            folderService.getOwnedFolder(folderId, userEmail);
+        }
+        return findPage(Criteria.where("uploadedBy").is(userEmail).and("folderId").is(folderId), cursor, size);
+    }
+    
+    private FilePageResponse findPage(Criteria criteria, String cursor, Integer size) {
+        int pageSize = size != null ? size : defaultPageSize;
+        if (pageSize <= 0 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Kích thước trang phải từ 1 đến " + maxPageSize);
         }
         
-        FileMetadata metadata = metadataOpt.get();
-        GridFSFile gridFSFile = gridFsTemplate.findOne(
-            new Query(Criteria.where("_id").is(metadata.getGridFsId()))
-        );
+        // One extra row tells whether another page exists
+        List<FileMetadata> files = findPage(criteria, FileCursor.decode(cursor), pageSize + 1);
+        boolean hasMore = files.size() > pageSize;
+        if (hasMore) {
+            files = files.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? FileCursor.of(files.get(files.size() - 1)).encode() : null;
         
-        if (gridFSFile == null) {
-            throw new IllegalArgumentException("File không tồn tại trong GridFS");
+        return new FilePageResponse(
+            files.stream().map(this::convertToResponse).collect(Collectors.toList()),
+            nextCursor,
+            hasMore
+        );
+    }
+    
+    private List<FileMetadata> findPage(String userEmail, String fileType, FileCursor after, int limit) {
+        Criteria criteria = Criteria.where("uploadedBy").is(userEmail);
+        if (fileType != null) {
+            criteria = criteria.and("fileType").is(fileType);
+        }
+        return findPage(criteria, after, limit);
+    }
+    
+    private List<FileMetadata> findPage(Criteria criteria, FileCursor after, int limit) {
+        if (after != null) {
+            criteria = criteria.orOperator(
+                Criteria.where("uploadedAt").lt(after.uploadedAt()),
+                Criteria.where("uploadedAt").is(after.uploadedAt()).and("_id").lt(new ObjectId(after.id()))
+            );
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Order.desc("uploadedAt"), Sort.Order.desc("_id")))
+            .limit(limit);
+        return mongoTemplate.find(query, FileMetadata.class);
+    }
+    
+    /**
+     * Mở stream cho đoạn [start, start + length) của file, backend chỉ đọc phần chứa đoạn đó.
+     */
+    public InputStream openRange(FileMetadata metadata, long start, long length) throws IOException {
+        if (start < 0 || length < 0 || start + length > metadata.getFileSize()) {
+            throw new IllegalArgumentException("Khoảng byte không hợp lệ");
         }
         
-        return gridFsOperations.getResource(gridFSFile).getInputStream();
+        return blobStoreRegistry.get(metadata.getStorageBackend())
+            .openRange(metadata.getGridFsId(), start, length);
+    }
+    
+    /**
+     * File cục bộ chứa nội dung, nếu backend có (dùng cho sendfile)
+     */
+    public Optional<Path> resolveLocalPath(FileMetadata metadata) {
+        return blobStoreRegistry.get(metadata.getStorageBackend()).resolveLocalPath(metadata.getGridFsId());
+    }
+    
+    /**
+     * Strong ETag: nội dung file không bao giờ thay đổi nên hash nội dung (hoặc blob id) là đủ.
+     */
+    public String getETag(FileMetadata metadata) {
+        String validator = metadata.getContentHash() != null ? metadata.getContentHash() : metadata.getGridFsId();
+        return "\"" + validator + "\"";
+    }
+    
+    public long getLastModified(FileMetadata metadata) {
+        return metadata.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
     
     public FileMetadata getFileMetadata(String fileId) {
@@ -117,25 +663,184 @@ public class FileService {
     }
     
     public void deleteFile(String fileId, String userEmail) {
-        Optional<FileMetadata> metadataOpt = fileMetadataRepository.findById(fileId);
-        if (metadataOpt.isEmpty()) {
+        // Mark the usage as changing before the metadata goes, like the bulk path
+        storageUsageService.touch(userEmail);
+        
+        // Only the request that actually removes the metadata releases its blob; a retry or a concurrent
+        // delete finds nothing and must not take a second reference off a blob other files may share
+        FileMetadata metadata = mongoTemplate.findAndRemove(
+            new Query(Criteria.where("_id").is(fileId).and("uploadedBy").is(userEmail)), FileMetadata.class);
+        if (metadata == null) {
+            if (fileMetadataRepository.existsById(fileId)) {
+                throw new IllegalArgumentException("Bạn không có quyền xóa file này");
+            }
             throw new IllegalArgumentException("File không tồn tại");
         }
         
-        FileMetadata metadata = metadataOpt.get();
+        storageUsageService.recordRemoved(userEmail, metadata.getFileType(), metadata.getFileSize());
         
-        // Check if user owns the file
-        if (!metadata.getUploadedBy().equals(userEmail)) {
-            throw new IllegalArgumentException("Bạn không có quyền xóa file này");
+        // Delete from storage once no other file shares the blob
+        releaseBlob(metadata);
+        
+        changeSequenceService.recordDeleted(userEmail, List.of(fileId));
+        thumbnailService.deleteThumbnails(fileId);
+        fileListingCache.invalidate(userEmail);
+    }
+    
+    /**
+     * Xóa nhiều file theo danh sách id hoặc theo bộ lọc (loại file, thư mục kèm thư mục con).
+     * Mỗi lô: một truy vấn kiểm tra quyền, một deleteMany cho metadata, một bulk update refCount,
+     * rồi blob được xóa theo lô ($in) ở từng backend.
+     */
+    public BulkDeleteResponse deleteFiles(BulkDeleteRequest request, String userEmail) {
+        List<BulkDeleteResponse.Failure> failures = new ArrayList<>();
+        long deleted = 0;
+        
+        List<String> fileIds = request.getFileIds();
+        if (fileIds != null && !fileIds.isEmpty()) {
+            List<String> distinctIds = fileIds.stream().distinct().collect(Collectors.toList());
+            if (distinctIds.size() > maxBulkDeleteIds) {
+                throw new IllegalArgumentException("Mỗi lần chỉ được xóa tối đa " + maxBulkDeleteIds + " file");
+            }
+            for (int from = 0; from < distinctIds.size(); from += bulkDeleteBatchSize) {
+                List<String> batch = distinctIds.subList(from, Math.min(from + bulkDeleteBatchSize, distinctIds.size()));
+                Map<String, FileMetadata> found = mongoTemplate.find(
+                        bulkDeleteQuery(Criteria.where("_id").in(batch)), FileMetadata.class).stream()
+                    .collect(Collectors.toMap(FileMetadata::getId, metadata -> metadata));
+                
+                List<FileMetadata> owned = new ArrayList<>();
+                for (String fileId : batch) {
+                    FileMetadata metadata = found.get(fileId);
+                    if (metadata == null) {
+                        failures.add(new BulkDeleteResponse.Failure(fileId, "File không tồn tại"));
+                    } else if (!metadata.getUploadedBy().equals(userEmail)) {
+                        failures.add(new BulkDeleteResponse.Failure(fileId, "Bạn không có quyền xóa file này"));
+                    } else {
+                        owned.add(metadata);
+                    }
+                }
+                deleted += deleteBatch(owned, userEmail);
+            }
+        } else {
+            if (request.getFileType() == null && request.getFolderId() == null) {
+                throw new IllegalArgumentException("Cần chọn file hoặc bộ lọc để xóa");
+            }
+            Criteria criteria = Criteria.where("uploadedBy").is(userEmail);
+            if (request.getFileType() != null) {
+                criteria = criteria.and("fileType").is(request.getFileType().toUpperCase());
+            }
+            if (request.getFolderId() != null) {
+                Folder folder = folderService.getOwnedFolder(request.getFolderId(), userEmail);
+                criteria = criteria.and("folderPath").regex("^" + folder.getPath());
+            }
+            Query query = bulkDeleteQuery(criteria).limit(bulkDeleteBatchSize);
+            List<FileMetadata> batch;
+            while (!(batch = mongoTemplate.find(query, FileMetadata.class)).isEmpty()) {
+                long removed = deleteBatch(batch, userEmail);
+                if (removed == 0) {
+                    break;
+                }
+                deleted += removed;
+            }
         }
         
-        // Delete from GridFS
-        gridFsTemplate.delete(
-            new Query(Criteria.where("_id").is(metadata.getGridFsId()))
-        );
+        if (deleted > 0) {
+            fileListingCache.invalidate(userEmail);
+        }
+        return new BulkDeleteResponse(deleted, failures);
+    }
+    
+    private static Query bulkDeleteQuery(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("uploadedBy", "gridFsId", "storageBackend", "contentHash", "fileType", "fileSize");
+        return query;
+    }
+    
+    /**
+     * Metadata bị xóa trước blob: nếu dừng giữa chừng thì chỉ còn blob mồ côi, không có file trỏ vào blob đã mất.
+     */
+    private long deleteBatch(List<FileMetadata> files, String userEmail) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        List<String> ids = files.stream().map(FileMetadata::getId).collect(Collectors.toList());
+        // How much is removed is only known afterwards; mark the counters busy for the usage reconcile first
+        storageUsageService.touch(userEmail);
+        long removed = mongoTemplate.remove(
+            new Query(Criteria.where("_id").in(ids).and("uploadedBy").is(userEmail)), FileMetadata.class
+        ).getDeletedCount();
+        thumbnailService.deleteThumbnails(ids);
+        changeSequenceService.recordDeleted(userEmail, ids);
+        if (removed != files.size()) {
+            // Some were deleted concurrently and we cannot tell which; releasing all could free a shared blob twice.
+            // Leftover blobs and counters are repaired by the reconcile jobs.
+            log.warn("Xóa hàng loạt: {}/{} file đã bị xóa trước đó, bỏ qua giải phóng blob của lô này", files.size() - removed, files.size());
+            return removed;
+        }
+        storageUsageService.recordRemoved(userEmail, files);
+        releaseBlobs(files);
+        return removed;
+    }
+    
+    /**
+     * Bản theo lô của releaseBlob: một bulk update refCount cho mọi hash, một truy vấn đọc lại,
+     * một lệnh xóa StoredBlob đã hết tham chiếu, rồi deleteAll ở từng backend.
+     */
+    private void releaseBlobs(List<FileMetadata> files) {
+        Map<String, List<String>> blobsByBackend = new HashMap<>();
+        Map<String, Long> refsByHash = new HashMap<>();
+        Map<String, FileMetadata> fileByHash = new HashMap<>();
+        for (FileMetadata metadata : files) {
+            if (metadata.getContentHash() == null) {
+                // Blob was never shared
+                blobsByBackend.computeIfAbsent(metadata.getStorageBackend(), k -> new ArrayList<>()).add(metadata.getGridFsId());
+            } else {
+                refsByHash.merge(metadata.getContentHash(), 1L, Long::sum);
+                fileByHash.putIfAbsent(metadata.getContentHash(), metadata);
+            }
+        }
         
-        // Delete metadata
-        fileMetadataRepository.deleteById(fileId);
+        if (!refsByHash.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredBlob.class);
+            refsByHash.forEach((hash, refs) -> bulk.updateOne(
+                new Query(Criteria.where("contentHash").is(hash)), new Update().inc("refCount", -refs)));
+            bulk.execute();
+            
+            List<StoredBlob> blobs = mongoTemplate.find(
+                new Query(Criteria.where("contentHash").in(refsByHash.keySet())), StoredBlob.class);
+            Map<String, StoredBlob> unreferenced = new HashMap<>();
+            for (StoredBlob blob : blobs) {
+                fileByHash.remove(blob.getContentHash());
+                if (blob.getRefCount() <= 0) {
+                    unreferenced.put(blob.getId(), blob);
+                }
+            }
+            // Hashes without a StoredBlob: delete the file's own blob, like releaseBlob does
+            for (FileMetadata metadata : fileByHash.values()) {
+                blobsByBackend.computeIfAbsent(metadata.getStorageBackend(), k -> new ArrayList<>()).add(metadata.getGridFsId());
+            }
+            
+            if (!unreferenced.isEmpty()) {
+                Query stillUnreferenced = new Query(Criteria.where("_id").in(unreferenced.keySet()).and("refCount").lte(0));
+                long removed = mongoTemplate.remove(stillUnreferenced, StoredBlob.class).getDeletedCount();
+                if (removed != unreferenced.size()) {
+                    // A concurrent upload re-acquired some of them in between; those must stay
+                    mongoTemplate.find(new Query(Criteria.where("_id").in(unreferenced.keySet())), StoredBlob.class)
+                        .forEach(blob -> unreferenced.remove(blob.getId()));
+                }
+                for (StoredBlob blob : unreferenced.values()) {
+                    blobsByBackend.computeIfAbsent(blob.getStorageBackend(), k -> new ArrayList<>()).add(blob.getGridFsId());
+                }
+            }
+        }
+        
+        blobsByBackend.forEach((backend, blobIds) -> {
+            try {
+                blobStoreRegistry.get(backend).deleteAll(blobIds);
+            } catch (RuntimeException e) {
+                log.warn("Không thể xóa {} blob trong {}: {}", blobIds.size(), backend, e.getMessage());
+            }
+        });
     }
     
     public FileUploadResponse renameFile(String fileId, String newFileName, String userEmail) {
@@ -170,14 +875,60 @@ public class FileService {
             newFileNameWithExtension = newFileName + originalExtension;
         }
         
-        // Update metadata
+        // Only the name fields: a full save would write back a stale blob location (storage migration)
+        // or folder path (folder move) read above
         metadata.setOriginalFileName(newFileNameWithExtension);
-        metadata = fileMetadataRepository.save(metadata);
+        metadata.setSearchTokens(SearchTokenizer.indexTokens(newFileNameWithExtension));
+        stampChange(metadata, changeSequenceService.next(userEmail));
+        long matched = mongoTemplate.updateFirst(
+            new Query(Criteria.where("_id").is(fileId).and("uploadedBy").is(userEmail)),
+            new Update()
+                .set("originalFileName", metadata.getOriginalFileName())
+                .set("searchTokens", metadata.getSearchTokens())
+                .set("changeSeq", metadata.getChangeSeq())
+                .set("changedAt", metadata.getChangedAt()),
+            FileMetadata.class
+        ).getMatchedCount();
+        if (matched == 0) {
+            throw new IllegalArgumentException("File không tồn tại");
+        }
+        fileListingCache.invalidate(userEmail);
         
         // Return updated response
         return convertToResponse(metadata);
     }
     
+    /**
+     * Chuyển file vào thư mục khác; targetFolderId null là cấp cao nhất
+     */
+    public FileUploadResponse moveFile(String fileId, String targetFolderId, String userEmail) {
+        FileMetadata metadata = getFileMetadata(fileId);
+        if (!metadata.getUploadedBy().equals(userEmail)) {
+            throw new IllegalArgumentException("Bạn không có quyền di chuyển file này");
+        }
+        Folder folder = targetFolderId != null ? folderService.getOwnedFolderForPlacement(targetFolderId, userEmail) : null;
+        
+        placeInFolder(metadata, folder);
+        stampChange(metadata, changeSequenceService.next(userEmail));
+        UpdateResult result = mongoTemplate.updateFirst(
+            new Query(Criteria.where("_id").is(fileId).and("uploadedBy").is(userEmail)),
+            new Update()
+                .set("folderId", metadata.getFolderId())
+                .set("folderPath", metadata.getFolderPath())
+                .set("changeSeq", metadata.getChangeSeq())
+                .set("changedAt", metadata.getChangedAt()),
+            FileMetadata.class
+        );
+        if (result.getMatchedCount() == 0) {
+            throw new IllegalArgumentException("File không tồn tại");
+        }
+        if (folder != null) {
+            folderService.settleFilePaths(folder, userEmail);
+        }
+        fileListingCache.invalidate(userEmail);
+        return convertToResponse(metadata);
+    }
+    
     private String determineFileType(String contentType) {
         if (contentType == null) {
             return "DOCUMENT";
@@ -192,8 +943,8 @@ public class FileService {
         }
     }
     
-    private FileUploadResponse convertToResponse(FileMetadata metadata) {
-        return new FileUploadResponse(
+    public FileUploadResponse convertToResponse(FileMetadata metadata) {
+        FileUploadResponse response = new FileUploadResponse(
             metadata.getId(),
             metadata.getFileName(),
             metadata.getOriginalFileName(),
@@ -203,5 +954,44 @@ public class FileService {
             metadata.getUploadedAt(),
             "/api/files/download/" + metadata.getId()
         );
+        response.setFolderId(metadata.getFolderId());
+        if ("IMAGE".equals(metadata.getFileType())) {
+            response.setThumbnailUrl("/api/files/thumbnail/" + metadata.getId());
+        }
+        return response;
+    }
+    
+    /**
+     * Vị trí trong danh sách file: file cuối cùng của trang trước. Client chỉ thấy một chuỗi base64url.
+     */
+    private record FileCursor(LocalDateTime uploadedAt, String id) {
+        
+        static FileCursor of(FileMetadata metadata) {
+            return new FileCursor(metadata.getUploadedAt(), metadata.getId());
+        }
+        
+        String encode() {
+            String raw = uploadedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static FileCursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                String id = raw.substring(separator + 1);
+                if (separator < 0 || !ObjectId.isValid(id)) {
+                    throw new IllegalArgumentException("Cursor không hợp lệ");
+                }
+                return new FileCursor(LocalDateTime.parse(raw.substring(0, separator)), id);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+        }
     }
-}
\ No newline at end of file
+    
+    record StoredContent(String blobId, String storageBackend, long size, String contentHash) {}
+}
@@ -0,0 +1,123 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.FileChangesResponse;
+import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.model.ChangeSequence;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.FileTombstone;
+
+/**
+ * Đồng bộ delta: trả về các file được thêm/sửa và id các file bị xóa có số thay đổi lớn hơn {@code since}.
+ * Chi phí tỉ lệ với số thay đổi, không phụ thuộc số file của user.
+ */
+@Service
+public class FileSyncService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    @Value("${app.sync.max-changes:1000}")
+    private int maxChanges;
+
+    // How long a write may take between getting its number and becoming visible
+    @Value("${app.sync.settle-window:5000}")
+    private long settleWindowMillis;
+
+    public FileChangesResponse getChanges(String userEmail, long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Con trỏ đồng bộ không hợp lệ");
+        }
+        if (limit <= 0 || limit > maxChanges) {
+            throw new IllegalArgumentException("Số thay đổi mỗi lần phải từ 1 đến " + maxChanges);
+        }
+        ChangeSequence sequence = changeSequenceService.get(userEmail);
+        long current = sequence != null ? sequence.getSeq() : 0;
+        long prunedThrough = sequence != null ? sequence.getPrunedThroughSeq() : 0;
+        if (since > current || (since > 0 && since < prunedThrough)) {
+            return new FileChangesResponse(List.of(), List.of(), 0, false, true);
+        }
+
+        // One extra row on each side tells whether more changes follow
+        Query filesQuery = changedSince(userEmail, since, limit + 1);
+        filesQuery.fields().exclude("searchTokens");
+        List<Change> changes = new ArrayList<>();
+        for (FileMetadata metadata : mongoTemplate.find(filesQuery, FileMetadata.class)) {
+            changes.add(new Change(metadata.getChangeSeq(), metadata.getChangedAt(), metadata, null));
+        }
+        if (since > 0) {
+            // A client starting from scratch has nothing to delete
+            for (FileTombstone tombstone : mongoTemplate.find(changedSince(userEmail, since, limit + 1), FileTombstone.class)) {
+                changes.add(new Change(tombstone.getChangeSeq(), tombstone.getDeletedAt(), null, tombstone.getId()));
+            }
+        }
+        changes.sort(Comparator.comparingLong(Change::seq));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        long nextSince = settledCursor(since, changes, LocalDateTime.now().minus(Duration.ofMillis(settleWindowMillis)));
+        if (!changes.isEmpty() && nextSince < changes.get(changes.size() - 1).seq()) {
+            // The rest comes again on the next poll, once in-flight writes had time to land
+            hasMore = false;
+        }
+
+        List<FileUploadResponse> upserts = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.file() != null) {
+                upserts.add(fileService.convertToResponse(change.file()));
+            } else {
+                deletedIds.add(change.deletedId());
+            }
+        }
+        return new FileChangesResponse(upserts, deletedIds, nextSince, hasMore, false);
+    }
+
+    /**
+     * Con trỏ an toàn để trả cho client. Số thay đổi được cấp trước khi ghi, nên hai lần ghi đồng thời có thể
+     * hiện ra không theo thứ tự: số 7 đã thấy trong khi số 6 còn đang ghi. Một khoảng trống trước một thay đổi
+     * còn mới (trong settle window) có thể là lần ghi chưa xong, nên con trỏ dừng lại trước khoảng trống đó.
+     * Khoảng trống trước thay đổi đã cũ là vĩnh viễn (file bị sửa lại sau đó, hoặc lần ghi thất bại).
+     */
+    static long settledCursor(long since, List<Change> ordered, LocalDateTime settledBefore) {
+        long cursor = since;
+        for (Change change : ordered) {
+            boolean gap = change.seq() != cursor + 1;
+            boolean recent = change.changedAt() == null || change.changedAt().isAfter(settledBefore);
+            if (gap && recent) {
+                break;
+            }
+            cursor = change.seq();
+        }
+        return cursor;
+    }
+
+    private static Query changedSince(String userEmail, long since, int limit) {
+        return new Query(Criteria.where("uploadedBy").is(userEmail).and("changeSeq").gt(since))
+            .with(Sort.by("changeSeq"))
+            .limit(limit);
+    }
+
+    record Change(long seq, LocalDateTime changedAt, FileMetadata file, String deletedId) {}
+}
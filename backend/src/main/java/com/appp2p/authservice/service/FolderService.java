@@ -0,0 +1,384 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.FolderResponse;
+import com.appp2p.authservice.dto.FolderSizeResponse;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.Folder;
+import com.appp2p.authservice.repository.FolderRepository;
+import com.mongodb.client.model.Filters;
+
+/**
+ * Thư mục của user. Mỗi thư mục (và mỗi file, qua folderPath) lưu path là chuỗi id từ gốc xuống,
+ * vd "/a/b/", nên cả cây con là một truy vấn tiền tố "^/a/b/" trên index.
+ * Path dùng id chứ không dùng tên: đổi tên chỉ sửa một document, di chuyển sửa chính thư mục rồi hai lệnh updateMany cho cây con.
+ */
+@Service
+public class FolderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FolderService.class);
+
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int SETTLE_ATTEMPTS = 10;
+    private static final long SETTLE_WAIT_MILLIS = 200;
+    private static final String MOVE_BUSY = "Thư mục đang được di chuyển, vui lòng thử lại";
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.folders.move-lease:600000}")
+    private long moveLease;
+
+    public FolderResponse createFolder(String name, String parentId, String userEmail) {
+        String folderName = validateName(name);
+        String parentPath = "/";
+        if (parentId != null) {
+            parentPath = getOwnedFolder(parentId, userEmail).getPath();
+        }
+
+        String id = new ObjectId().toHexString();
+        Folder folder = new Folder(id, folderName, userEmail, parentId, parentPath + id + "/");
+        try {
+            return convertToResponse(folderRepository.insert(folder));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Đã có thư mục tên \"" + folderName + "\" ở đây");
+        }
+    }
+
+    public List<FolderResponse> listChildren(String parentId, String userEmail) {
+        if (parentId != null) {
+            getOwnedFolder(parentId, userEmail);
+        }
+        return folderRepository.findByOwnerAndParentId(userEmail, parentId, Sort.by("name")).stream()
+            .map(this::convertToResponse)
+            .collect(Collectors.toList());
+    }
+
+    public FolderResponse renameFolder(String folderId, String newName, String userEmail) {
+        Folder folder = getOwnedFolder(folderId, userEmail);
+        folder.setName(validateName(newName));
+        try {
+            return convertToResponse(folderRepository.save(folder));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Đã có thư mục tên \"" + folder.getName() + "\" ở đây");
+        }
+    }
+
+    /**
+     * Chuyển thư mục (cùng toàn bộ cây con) vào thư mục khác, hoặc lên cấp cao nhất nếu targetFolderId là null.
+     * Thư mục được giữ (moveFromPath/moveToPath) trước khi kiểm tra lại đích: mọi lần di chuyển đều giữ trước rồi
+     * mới kiểm tra, nên trong hai lần di chuyển đụng nhau (vd A vào B và B vào A) ít nhất một bên thấy bên kia và dừng.
+     * Path của mọi thư mục và file con được viết lại trong server bằng update pipeline, không đọc về ứng dụng.
+     */
+    public FolderResponse moveFolder(String folderId, String targetFolderId, String userEmail) {
+        Folder folder = getOwnedFolder(folderId, userEmail);
+        if (Objects.equals(folder.getParentId(), targetFolderId)) {
+            return convertToResponse(folder);
+        }
+        String targetPath = "/";
+        if (targetFolderId != null) {
+            targetPath = getOwnedFolder(targetFolderId, userEmail).getPath();
+        }
+        String oldPath = folder.getPath();
+        checkNotIntoItself(oldPath, targetPath);
+        String newPath = targetPath + folder.getId() + "/";
+
+        // Claim only the path checked above, and only if no other move holds this folder
+        Folder claimed = mongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(folderId).and("path").is(oldPath).and("moveFromPath").exists(false)),
+            new Update()
+                .set("moveFromPath", oldPath)
+                .set("moveToPath", newPath)
+                .set("moveLeaseUntil", LocalDateTime.now().plus(Duration.ofMillis(moveLease))),
+            Folder.class);
+        if (claimed == null) {
+            throw new IllegalArgumentException(MOVE_BUSY);
+        }
+        try {
+            if (targetFolderId != null) {
+                Folder target = folderRepository.findById(targetFolderId).orElse(null);
+                if (target == null || !target.getPath().equals(targetPath)) {
+                    throw new IllegalArgumentException(MOVE_BUSY);
+                }
+            }
+            checkNotIntoItself(oldPath, targetPath);
+            if (hasConflictingMove(userEmail, folderId, oldPath, targetPath)) {
+                throw new IllegalArgumentException(MOVE_BUSY);
+            }
+            moveOwnFolder(folderId, oldPath, newPath);
+        } catch (RuntimeException e) {
+            releaseMove(folderId);
+            throw e;
+        }
+        // From here the move only goes forward; if this request dies, repairInterruptedMoves() finishes it
+        moveSubtree(userEmail, oldPath, newPath);
+        releaseMove(folderId);
+
+        folder.setParentId(targetFolderId);
+        folder.setPath(newPath);
+        return convertToResponse(folder);
+    }
+
+    /**
+     * Hoàn tất các lần di chuyển bị ngắt giữa chừng (đã hết lease mà vẫn còn moveFromPath): viết lại path của
+     * thư mục và folderPath của file trong cây con. Các bước đều chạy lại được nhiều lần.
+     */
+    @Scheduled(fixedDelayString = "${app.folders.move-repair-interval:300000}")
+    public void repairInterruptedMoves() {
+        List<Folder> stale = mongoTemplate.find(
+            new Query(Criteria.where("moveLeaseUntil").lt(LocalDateTime.now())), Folder.class);
+        for (Folder folder : stale) {
+            try {
+                moveOwnFolder(folder.getId(), folder.getMoveFromPath(), folder.getMoveToPath());
+                moveSubtree(folder.getOwner(), folder.getMoveFromPath(), folder.getMoveToPath());
+                log.info("Finished interrupted move of folder {} to {}", folder.getId(), folder.getMoveToPath());
+            } catch (IllegalArgumentException e) {
+                // Name clash at the target: the folder itself never moved, so nothing below it did either
+                log.warn("Dropped interrupted move of folder {}: {}", folder.getId(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("Repair of interrupted move of folder {} failed, retrying next run", folder.getId(), e);
+                continue;
+            }
+            releaseMove(folder.getId());
+        }
+    }
+
+    /**
+     * Thư mục để chuyển file vào, đọc lại ngay trước khi ghi. Từ chối khi nó hoặc một thư mục cha đang được di chuyển.
+     */
+    public Folder getOwnedFolderForPlacement(String folderId, String userEmail) {
+        Folder folder = getOwnedFolder(folderId, userEmail);
+        if (isMoving(folder)) {
+            throw new IllegalArgumentException(MOVE_BUSY);
+        }
+        return folder;
+    }
+
+    /**
+     * Đọc lại thư mục để lấy path mới nhất; thư mục đã bị xóa thì trả lại chính nó.
+     */
+    public Folder refresh(Folder folder) {
+        return folderRepository.findById(folder.getId()).orElse(folder);
+    }
+
+    /**
+     * Gọi sau khi đã ghi file với folderPath lấy từ folder. Một lần di chuyển bắt đầu sau lần kiểm tra cuối ở đây
+     * sẽ tự viết lại file; còn nếu thư mục đã bị di chuyển trong lúc ghi thì chờ lần di chuyển đó xong rồi sửa
+     * folderPath của các file trong thư mục vẫn mang path cũ. Di chuyển bị ngắt giữa chừng thì repairInterruptedMoves sửa.
+     */
+    public void settleFilePaths(Folder folder, String userEmail) {
+        String writtenPath = folder.getPath();
+        for (int attempt = 0; attempt < SETTLE_ATTEMPTS; attempt++) {
+            Folder current = folderRepository.findById(folder.getId()).orElse(null);
+            if (current == null) {
+                return;
+            }
+            if (isMoving(current)) {
+                try {
+                    Thread.sleep(SETTLE_WAIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            if (current.getPath().equals(writtenPath)) {
+                return;
+            }
+            mongoTemplate.updateMulti(
+                new Query(Criteria.where("uploadedBy").is(userEmail)
+                    .and("folderId").is(current.getId())
+                    .and("folderPath").ne(current.getPath())),
+                new Update().set("folderPath", current.getPath()),
+                FileMetadata.class);
+            // Check again: another move may have started meanwhile
+            writtenPath = current.getPath();
+        }
+        log.warn("Folder {} kept moving while files were placed in it; left to the move repair", folder.getId());
+    }
+
+    /**
+     * Thư mục hoặc một thư mục cha của nó đang bị giữ bởi một lần di chuyển
+     */
+    private boolean isMoving(Folder folder) {
+        return mongoTemplate.exists(new Query(Criteria.where("owner").is(folder.getOwner())
+            .and("_id").in(pathIds(folder.getPath()))
+            .and("moveFromPath").exists(true)), Folder.class);
+    }
+
+    private static void checkNotIntoItself(String folderPath, String targetPath) {
+        if (targetPath.startsWith(folderPath)) {
+            throw new IllegalArgumentException("Không thể chuyển thư mục vào chính nó hoặc thư mục con của nó");
+        }
+    }
+
+    /**
+     * Một lần di chuyển khác đang giữ tổ tiên hay con cháu của thư mục, thư mục đích hay tổ tiên của đích,
+     * hoặc đang chuyển một thư mục vào cây con này
+     */
+    private boolean hasConflictingMove(String userEmail, String folderId, String oldPath, String targetPath) {
+        List<String> related = new ArrayList<>(pathIds(oldPath));
+        related.addAll(pathIds(targetPath));
+        Criteria criteria = Criteria.where("owner").is(userEmail)
+            .and("_id").ne(folderId)
+            .and("moveFromPath").exists(true)
+            .orOperator(
+                Criteria.where("_id").in(related),
+                Criteria.where("path").regex("^" + oldPath),
+                Criteria.where("moveToPath").regex("^" + oldPath));
+        return mongoTemplate.exists(new Query(criteria), Folder.class);
+    }
+
+    /**
+     * Chỉ đổi path và parentId của chính thư mục, với điều kiện path vẫn là oldPath. Trùng tên ở đích
+     * báo lỗi ngay tại đây, trước khi cây con bị đụng tới.
+     */
+    private void moveOwnFolder(String folderId, String oldPath, String newPath) {
+        List<String> ids = pathIds(newPath);
+        String parentId = ids.size() > 1 ? ids.get(ids.size() - 2) : null;
+        Update update = new Update().set("path", newPath);
+        if (parentId != null) {
+            update.set("parentId", parentId);
+        } else {
+            update.unset("parentId");
+        }
+        try {
+            mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(folderId).and("path").is(oldPath)), update, Folder.class);
+        } catch (DuplicateKeyException e) {
+            Folder folder = folderRepository.findById(folderId).orElse(null);
+            String name = folder != null ? folder.getName() : folderId;
+            throw new IllegalArgumentException("Đã có thư mục tên \"" + name + "\" ở thư mục đích");
+        }
+    }
+
+    /**
+     * Viết lại path của thư mục con cháu và folderPath của file; chạy lại sau khi đã xong thì không khớp gì nữa
+     * vì newPath không bao giờ bắt đầu bằng oldPath.
+     */
+    private void moveSubtree(String userEmail, String oldPath, String newPath) {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Folder.class)).updateMany(
+            Filters.and(Filters.eq("owner", userEmail), Filters.regex("path", "^" + oldPath)),
+            List.of(new Document("$set", new Document("path", replacePrefix("path", oldPath, newPath))))
+        );
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(FileMetadata.class)).updateMany(
+            Filters.and(Filters.eq("uploadedBy", userEmail), Filters.regex("folderPath", "^" + oldPath)),
+            List.of(new Document("$set", new Document("folderPath", replacePrefix("folderPath", oldPath, newPath))))
+        );
+    }
+
+    private void releaseMove(String folderId) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(folderId)),
+            new Update().unset("moveFromPath").unset("moveToPath").unset("moveLeaseUntil"), Folder.class);
+    }
+
+    /**
+     * "/a/b/" -> [a, b]
+     */
+    private static List<String> pathIds(String path) {
+        return Arrays.stream(path.split("/")).filter(id -> !id.isEmpty()).collect(Collectors.toList());
+    }
+
+    /**
+     * Tổng dung lượng và số file trong cả cây con, tính bằng một aggregation trên index folderPath.
+     */
+    public FolderSizeResponse getSubtreeSize(String folderId, String userEmail) {
+        Folder folder = getOwnedFolder(folderId, userEmail);
+        Criteria inSubtree = Criteria.where("uploadedBy").is(userEmail).and("folderPath").regex("^" + folder.getPath());
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(inSubtree),
+            Aggregation.group().sum("fileSize").as("totalBytes").count().as("totalFiles")
+        );
+        Document totals = mongoTemplate.aggregate(aggregation, FileMetadata.class, Document.class).getUniqueMappedResult();
+        long folders = mongoTemplate.count(
+            new Query(Criteria.where("owner").is(userEmail).and("path").regex("^" + folder.getPath())), Folder.class);
+
+        return new FolderSizeResponse(
+            folderId,
+            totals != null ? ((Number) totals.get("totalBytes")).longValue() : 0,
+            totals != null ? ((Number) totals.get("totalFiles")).longValue() : 0,
+            folders - 1
+        );
+    }
+
+    /**
+     * Chỉ xóa được thư mục rỗng
+     */
+    public void deleteFolder(String folderId, String userEmail) {
+        Folder folder = getOwnedFolder(folderId, userEmail);
+        boolean hasFolders = mongoTemplate.exists(
+            new Query(Criteria.where("owner").is(userEmail).and("parentId").is(folderId)), Folder.class);
+        boolean hasFiles = mongoTemplate.exists(
+            new Query(Criteria.where("uploadedBy").is(userEmail).and("folderId").is(folderId)), FileMetadata.class);
+        if (hasFolders || hasFiles) {
+            throw new IllegalArgumentException("Thư mục không trống");
+        }
+        folderRepository.delete(folder);
+    }
+
+    public Folder getOwnedFolder(String folderId, String userEmail) {
+        Folder folder = folderRepository.findById(folderId)
+            .orElseThrow(() -> new IllegalArgumentException("Thư mục không tồn tại"));
+        if (!folder.getOwner().equals(userEmail)) {
+            throw new IllegalArgumentException("Bạn không có quyền truy cập thư mục này");
+        }
+        return folder;
+    }
+
+    public FolderResponse convertToResponse(Folder folder) {
+        return new FolderResponse(folder.getId(), folder.getName(), folder.getParentId(), folder.getCreatedAt());
+    }
+
+    private String validateName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tên thư mục không được để trống");
+        }
+        String trimmed = name.trim();
+        if (trimmed.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Tên thư mục tối đa " + MAX_NAME_LENGTH + " ký tự");
+        }
+        return trimmed;
+    }
+
+    /**
+     * newPrefix + field[oldPrefix.length():], chạy trong server
+     */
+    private static Bson replacePrefix(String field, String oldPrefix, String newPrefix) {
+        Document length = new Document("$strLenCP", "$" + field);
+        return new Document("$concat", List.of(
+            newPrefix,
+            new Document("$substrCP", List.of(
+                "$" + field,
+                oldPrefix.length(),
+                new Document("$subtract", List.of(length, oldPrefix.length()))
+            ))
+        ));
+    }
+}
@@ -0,0 +1,69 @@
+package com.appp2p.authservice.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.model.FileMetadata;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Xuất toàn bộ metadata file của user dạng NDJSON (mỗi dòng một FileUploadResponse), đọc từ cursor MongoDB
+ * và ghi từng bản ghi ngay khi nhận được, nên bộ nhớ dùng không phụ thuộc số file.
+ */
+@Service
+public class MetadataExportService {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private FileService fileService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Documents per cursor batch; the response is flushed once per batch
+    @Value("${app.files.export.batch-size:500}")
+    private int batchSize;
+    
+    public void writeNdjson(String userEmail, String fileType, OutputStream out) throws IOException {
+        Criteria criteria = Criteria.where("uploadedBy").is(userEmail);
+        if (fileType != null) {
+            criteria = criteria.and("fileType").is(fileType);
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Order.desc("uploadedAt"), Sort.Order.desc("_id")))
+            .cursorBatchSize(batchSize);
+        query.fields().exclude("searchTokens");
+        
+        // Flushing after every record would send one tiny chunk per file
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<FileMetadata> files = mongoTemplate.stream(query, FileMetadata.class)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Records are separated by the newline below, not Jackson's default space
+            generator.setRootValueSeparator(null);
+            long written = 0;
+            for (FileMetadata metadata : (Iterable<FileMetadata>) files::iterator) {
+                writer.writeValue(generator, fileService.convertToResponse(metadata));
+                generator.writeRaw('\n');
+                if (++written % batchSize == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.OrphanReconcileResponse;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.OrphanReconcileState;
+import com.appp2p.authservice.model.StoredBlob;
+import com.appp2p.authservice.storage.BlobStoreRegistry;
+import com.appp2p.authservice.storage.GridFsBlobStore;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tìm blob GridFS không còn file nào tham chiếu và metadata trỏ tới blob không tồn tại.
+ * fs.files (theo _id) và file_metadata (theo gridFsId) được đọc song song theo cùng thứ tự rồi so khớp như merge join,
+ * từng trang theo keyset nên không giữ cursor lâu và có thể dừng/tiếp tục ở bất kỳ đâu.
+ * Blob mồ côi chỉ bị xóa khi cũ hơn grace period (upload ghi blob trước, metadata sau).
+ */
+@Service
+public class OrphanReconcileService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanReconcileService.class);
+
+    private static final String JOB_ID = "gridfs-orphans";
+    private static final int DANGLING_SAMPLE_SIZE = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    @Qualifier("backgroundTaskExecutor")
+    private ThreadPoolTaskExecutor backgroundTaskExecutor;
+
+    @Autowired
+    private BlobStoreRegistry blobStoreRegistry;
+
+    @Value("${app.storage.orphans.grace-period:86400000}")
+    private long gracePeriodMillis;
+
+    @Value("${app.storage.orphans.batch-size:500}")
+    private int batchSize;
+
+    // Sleep between batches so the scan never competes with user requests for long
+    @Value("${app.storage.orphans.batch-pause:200}")
+    private long batchPauseMillis;
+
+    @Value("${app.storage.orphans.lease:600000}")
+    private long leaseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+
+    @Scheduled(cron = "${app.storage.orphans.reconcile-cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        start();
+    }
+
+    /**
+     * Bắt đầu (hoặc tiếp tục) quét ở background.
+     *
+     * @return false nếu đang có lần quét khác chạy trên node này hoặc node khác
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        if (!acquireLease()) {
+            running.set(false);
+            return false;
+        }
+        try {
+            backgroundTaskExecutor.execute(() -> {
+                try {
+                    run();
+                } catch (Exception e) {
+                    log.warn("Quét blob mồ côi bị dừng: {}", e.getMessage());
+                } finally {
+                    releaseLease();
+                    running.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Shutting down
+            releaseLease();
+            running.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    public OrphanReconcileResponse getStatus() {
+        OrphanReconcileState state = mongoTemplate.findById(JOB_ID, OrphanReconcileState.class);
+        OrphanReconcileResponse response = new OrphanReconcileResponse();
+        response.setRunning(running.get());
+        if (state != null) {
+            response.setInProgress(state.getLastKey() != null);
+            response.setStartedAt(state.getStartedAt());
+            response.setFinishedAt(state.getFinishedAt());
+            response.setBlobsScanned(state.getBlobsScanned());
+            response.setMetadataScanned(state.getMetadataScanned());
+            response.setOrphanBlobsDeleted(state.getOrphanBlobsDeleted());
+            response.setOrphanBytesDeleted(state.getOrphanBytesDeleted());
+            response.setOrphanBlobsInGrace(state.getOrphanBlobsInGrace());
+            response.setDedupOnlyBlobs(state.getDedupOnlyBlobs());
+            response.setDanglingMetadata(state.getDanglingMetadata());
+            response.setDanglingMetadataSample(state.getDanglingMetadataSample());
+        }
+        return response;
+    }
+
+    @PreDestroy
+    public void stop() {
+        // The checkpoint of the last finished batch stays, the next run resumes from it
+        stopping = true;
+    }
+
+    private void run() throws InterruptedException {
+        OrphanReconcileState state = mongoTemplate.findById(JOB_ID, OrphanReconcileState.class);
+        if (state.getLastKey() == null) {
+            state = freshState(state.getLeaseUntil());
+        }
+        String resumeAfter = state.getLastKey();
+        log.info("Bắt đầu quét blob mồ côi{}", resumeAfter != null ? " từ " + resumeAfter : "");
+
+        KeysetStream blobs = new KeysetStream(resumeAfter, this::fetchBlobs, doc -> doc.getObjectId("_id").toHexString());
+        KeysetStream files = new KeysetStream(resumeAfter, this::fetchFiles, doc -> doc.getString("gridFsId"));
+        List<Document> candidates = new ArrayList<>();
+        List<Document> dangling = new ArrayList<>();
+        int handled = 0;
+
+        while (!stopping) {
+            Document blob = blobs.peek();
+            Document file = files.peek();
+            if (blob == null && file == null) {
+                break;
+            }
+            String blobKey = blob != null ? blobs.key(blob) : null;
+            String fileKey = file != null ? files.key(file) : null;
+            int order = blob == null ? 1 : file == null ? -1 : blobKey.compareTo(fileKey);
+
+            String key;
+            if (order < 0) {
+                // No file references this blob (yet); decided in flush
+                candidates.add(blob);
+                blobs.next();
+                state.setBlobsScanned(state.getBlobsScanned() + 1);
+                key = blobKey;
+            } else if (order > 0) {
+                dangling.add(file);
+                files.next();
+                state.setMetadataScanned(state.getMetadataScanned() + 1);
+                key = fileKey;
+            } else {
+                blobs.next();
+                files.next();
+                state.setBlobsScanned(state.getBlobsScanned() + 1);
+                state.setMetadataScanned(state.getMetadataScanned() + 1);
+                key = blobKey;
+            }
+
+            if (++handled >= batchSize) {
+                flush(candidates, dangling, state);
+                state.setLastKey(key);
+                saveCheckpoint(state);
+                handled = 0;
+                Thread.sleep(batchPauseMillis);
+            }
+        }
+
+        flush(candidates, dangling, state);
+        if (!stopping) {
+            state.setLastKey(null);
+            state.setFinishedAt(LocalDateTime.now());
+            log.info("Quét blob mồ côi xong: xóa {} blob ({} bytes), {} file mất blob",
+                state.getOrphanBlobsDeleted(), state.getOrphanBytesDeleted(), state.getDanglingMetadata());
+        }
+        saveCheckpoint(state);
+    }
+
+    /**
+     * Xóa các blob ứng viên đã qua grace period và vẫn không có tham chiếu nào khi kiểm tra lại
+     * (kể cả blob chỉ còn bản ghi dedup cũ, xem removeUnreferencedRecord),
+     * và ghi nhận metadata mà blob vẫn không tồn tại khi kiểm tra lại.
+     */
+    private void flush(List<Document> candidates, List<Document> dangling, OrphanReconcileState state) {
+        recordDangling(dangling, state);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<String> ids = candidates.stream()
+            .map(doc -> doc.getObjectId("_id").toHexString())
+            .collect(Collectors.toList());
+
+        // Re-check files (one may have been saved since the page was read) and dedup records
+        Set<String> referencedByFiles = new HashSet<>(mongoTemplate.findDistinct(
+            new Query(Criteria.where("gridFsId").in(ids)), "gridFsId", FileMetadata.class, String.class));
+        Map<String, StoredBlob> dedupRecords = mongoTemplate.find(
+                new Query(Criteria.where("gridFsId").in(ids)), StoredBlob.class).stream()
+            .collect(Collectors.toMap(StoredBlob::getGridFsId, Function.identity(), (a, b) -> a));
+
+        Date cutoff = new Date(System.currentTimeMillis() - gracePeriodMillis);
+        List<String> orphans = new ArrayList<>();
+        long orphanBytes = 0;
+        for (Document candidate : candidates) {
+            String id = candidate.getObjectId("_id").toHexString();
+            if (referencedByFiles.contains(id)) {
+                continue;
+            }
+            StoredBlob dedupRecord = dedupRecords.get(id);
+            if (dedupRecord != null) {
+                if (!removeUnreferencedRecord(dedupRecord, LocalDateTime.now().minus(Duration.ofMillis(gracePeriodMillis)))) {
+                    state.setDedupOnlyBlobs(state.getDedupOnlyBlobs() + 1);
+                    continue;
+                }
+                // The record was last acquired before the cutoff, so the blob is older still
+            } else {
+                Date uploadDate = candidate.getDate("uploadDate");
+                if (uploadDate != null && uploadDate.after(cutoff)) {
+                    state.setOrphanBlobsInGrace(state.getOrphanBlobsInGrace() + 1);
+                    continue;
+                }
+            }
+            orphans.add(id);
+            orphanBytes += candidate.get("length", Number.class).longValue();
+        }
+
+        if (!orphans.isEmpty()) {
+            blobStoreRegistry.get(GridFsBlobStore.NAME).deleteAll(orphans);
+            state.setOrphanBlobsDeleted(state.getOrphanBlobsDeleted() + orphans.size());
+            state.setOrphanBytesDeleted(state.getOrphanBytesDeleted() + orphanBytes);
+        }
+        candidates.clear();
+    }
+
+    /**
+     * StoredBlob không được acquire trong grace period: refCount được sửa theo số file thực sự trỏ tới blob,
+     * và record bị xóa nếu không còn file nào. Cả hai chỉ áp dụng khi refCount vẫn là giá trị đã đọc,
+     * nên một upload vừa acquire record sẽ giữ nó lại.
+     *
+     * @return true nếu record đã bị xóa và blob được xóa theo
+     */
+    private boolean removeUnreferencedRecord(StoredBlob record, LocalDateTime cutoff) {
+        LocalDateTime lastAcquired = record.getLastAcquiredAt() != null ? record.getLastAcquiredAt() : record.getCreatedAt();
+        if (lastAcquired == null || lastAcquired.isAfter(cutoff)) {
+            // An upload between acquiring the blob and saving metadata
+            return false;
+        }
+        long references = mongoTemplate.count(new Query(Criteria.where("gridFsId").is(record.getGridFsId())
+            .and("contentHash").is(record.getContentHash())), FileMetadata.class);
+        Query unchanged = new Query(Criteria.where("_id").is(record.getId()).and("refCount").is(record.getRefCount()));
+        if (references > 0) {
+            // A file was saved since the re-check above
+            if (references != record.getRefCount()) {
+                mongoTemplate.updateFirst(unchanged, new Update().set("refCount", references), StoredBlob.class);
+            }
+            return false;
+        }
+        if (mongoTemplate.remove(unchanged, StoredBlob.class).getDeletedCount() == 0) {
+            return false;
+        }
+        log.info("Xóa bản ghi dedup {} (refCount {}) không còn file nào tham chiếu", record.getContentHash(), record.getRefCount());
+        return true;
+    }
+
+    private void recordDangling(List<Document> dangling, OrphanReconcileState state) {
+        if (dangling.isEmpty()) {
+            return;
+        }
+        // The blob may have been written after its page was read
+        List<ObjectId> blobIds = dangling.stream()
+            .map(doc -> doc.getString("gridFsId"))
+            .filter(ObjectId::isValid)
+            .map(ObjectId::new)
+            .collect(Collectors.toList());
+        Set<String> existing = mongoTemplate.getCollection("fs.files")
+            .find(Filters.in("_id", blobIds))
+            .projection(Projections.include("_id"))
+            .map(doc -> doc.getObjectId("_id").toHexString())
+            .into(new HashSet<>());
+        for (Document file : dangling) {
+            if (existing.contains(file.getString("gridFsId"))) {
+                continue;
+            }
+            state.setDanglingMetadata(state.getDanglingMetadata() + 1);
+            if (state.getDanglingMetadataSample().size() < DANGLING_SAMPLE_SIZE) {
+                state.getDanglingMetadataSample().add(file.getObjectId("_id").toHexString());
+            }
+        }
+        dangling.clear();
+    }
+
+    private List<Document> fetchBlobs(String after) {
+        Bson filter = after != null ? Filters.gt("_id", new ObjectId(after)) : new Document();
+        return mongoTemplate.getCollection("fs.files")
+            .find(filter)
+            .projection(Projections.include("uploadDate", "length"))
+            .sort(Sorts.ascending("_id"))
+            .limit(batchSize)
+            .into(new ArrayList<>());
+    }
+
+    private List<Document> fetchFiles(String after) {
+        // Records written before backends existed have no backend name
+        Bson inGridFs = Filters.in("storageBackend", GridFsBlobStore.NAME, null);
+        Bson filter = after != null ? Filters.and(Filters.gt("gridFsId", after), inGridFs) : inGridFs;
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(FileMetadata.class))
+            .find(filter)
+            .projection(Projections.include("gridFsId"))
+            .sort(Sorts.ascending("gridFsId"))
+            .limit(batchSize)
+            .into(new ArrayList<>());
+    }
+
+    private OrphanReconcileState freshState(LocalDateTime leaseUntil) {
+        OrphanReconcileState state = new OrphanReconcileState(JOB_ID);
+        state.setStartedAt(LocalDateTime.now());
+        state.setLeaseUntil(leaseUntil);
+        return state;
+    }
+
+    private void saveCheckpoint(OrphanReconcileState state) {
+        LocalDateTime now = LocalDateTime.now();
+        state.setUpdatedAt(now);
+        state.setLeaseUntil(now.plus(Duration.ofMillis(leaseMillis)));
+        mongoTemplate.save(state);
+    }
+
+    /**
+     * Giữ quyền quét trong leaseMillis; được gia hạn sau mỗi lô. Node chết giữa chừng thì lease tự hết hạn.
+     */
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Query free = new Query(Criteria.where("_id").is(JOB_ID).orOperator(
+            Criteria.where("leaseUntil").exists(false),
+            Criteria.where("leaseUntil").lt(now)
+        ));
+        Update update = new Update()
+            .set("leaseUntil", now.plus(Duration.ofMillis(leaseMillis)))
+            .setOnInsert("danglingMetadataSample", new ArrayList<>());
+        try {
+            return mongoTemplate.findAndModify(free, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), OrphanReconcileState.class) != null;
+        } catch (DuplicateKeyException e) {
+            // The document exists and another node holds the lease
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(JOB_ID)),
+            new Update().unset("leaseUntil"), OrphanReconcileState.class);
+    }
+
+    /**
+     * Đọc một collection theo thứ tự khóa tăng dần, mỗi lần một trang, bỏ qua các bản ghi trùng khóa liền nhau.
+     */
+    private static class KeysetStream {
+
+        private final Function<String, List<Document>> fetch;
+        private final Function<Document, String> keyOf;
+        private List<Document> page = List.of();
+        private int index;
+        private String lastKey;
+        private boolean exhausted;
+
+        KeysetStream(String after, Function<String, List<Document>> fetch, Function<Document, String> keyOf) {
+            this.fetch = fetch;
+            this.keyOf = keyOf;
+            this.lastKey = after;
+        }
+
+        Document peek() {
+            while (true) {
+                while (index < page.size()) {
+                    Document doc = page.get(index);
+                    if (!keyOf.apply(doc).equals(lastKey)) {
+                        return doc;
+                    }
+                    // Several files share one deduplicated blob
+                    index++;
+                }
+                if (exhausted) {
+                    return null;
+                }
+                page = fetch.apply(lastKey);
+                index = 0;
+                exhausted = page.isEmpty();
+            }
+        }
+
+        void next() {
+            lastKey = keyOf.apply(page.get(index++));
+        }
+
+        String key(Document doc) {
+            return keyOf.apply(doc);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.appp2p.authservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.StorageUsageResponse;
+import com.appp2p.authservice.exception.QuotaExceededException;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.UserStorageUsage;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Theo dõi dung lượng của từng user bằng một document đếm, cập nhật nguyên tử bằng $inc.
+ * Quota được kiểm tra hai lần: đọc nhanh trước khi nhận dữ liệu, và cộng có điều kiện trước khi lưu metadata
+ * để hai upload đồng thời không thể cùng vượt quota.
+ */
+@Service
+public class StorageUsageService {
+    
+    private static final Logger log = LoggerFactory.getLogger(StorageUsageService.class);
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    private static final int RECONCILE_ATTEMPTS = 3;
+    
+    // 0 means unlimited
+    @Value("${app.storage.quota.default-bytes:0}")
+    private long defaultQuotaBytes;
+    
+    @Value("${app.storage.usage.reconcile-grace:60000}")
+    private long reconcileGraceMillis;
+    
+    public StorageUsageResponse getUsage(String userEmail) {
+        UserStorageUsage usage = find(userEmail);
+        if (usage == null) {
+            usage = new UserStorageUsage(userEmail);
+        }
+        return new StorageUsageResponse(
+            usage.getTotalBytes(),
+            usage.getTotalFiles(),
+            usage.getBytesByType(),
+            usage.getFilesByType(),
+            quotaOf(usage)
+        );
+    }
+    
+    /**
+     * Kiểm tra nhanh (không giữ chỗ) trước khi bắt đầu nhận dữ liệu. Upload chưa biết kích thước dùng remainingQuota.
+     */
+    public void checkQuota(String userEmail, long incomingBytes) {
+        UserStorageUsage usage = find(userEmail);
+        Long quota = quotaOf(usage);
+        long used = usage != null ? usage.getTotalBytes() : 0;
+        if (quota != null && (used + incomingBytes > quota || (incomingBytes == 0 && used >= quota))) {
+            throw exceeded(quota);
+        }
+    }
+    
+    /**
+     * Số byte user còn được ghi thêm, dùng để chặn upload chưa biết kích thước ngay khi vượt quota.
+     *
+     * @return Long.MAX_VALUE nếu không giới hạn
+     * @throws QuotaExceededException nếu đã hết quota
+     */
+    public long remainingQuota(String userEmail) {
+        UserStorageUsage usage = find(userEmail);
+        Long quota = quotaOf(usage);
+        if (quota == null) {
+            return Long.MAX_VALUE;
+        }
+        long used = usage != null ? usage.getTotalBytes() : 0;
+        if (used >= quota) {
+            throw exceeded(quota);
+        }
+        return quota - used;
+    }
+    
+    /**
+     * Cộng file vào dung lượng của user, chỉ khi tổng sau khi cộng không vượt quota.
+     *
+     * @throws QuotaExceededException nếu vượt quota; khi đó không có gì thay đổi
+     */
+    public void recordAdded(String userEmail, String fileType, long bytes) {
+        Long quota = quotaOf(find(userEmail));
+        Query query = new Query(Criteria.where("_id").is(userEmail));
+        if (quota != null) {
+            if (bytes > quota) {
+                throw exceeded(quota);
+            }
+            query.addCriteria(Criteria.where("totalBytes").lte(quota - bytes));
+        }
+        try {
+            mongoTemplate.upsert(query, increment(fileType, bytes, 1), UserStorageUsage.class);
+        } catch (DuplicateKeyException e) {
+            // The document exists but the quota condition did not match, so the upsert tried to insert a second one
+            throw exceeded(quota);
+        }
+    }
+    
+    public void recordRemoved(String userEmail, String fileType, long bytes) {
+        mongoTemplate.upsert(
+            new Query(Criteria.where("_id").is(userEmail)),
+            increment(fileType, -bytes, -1),
+            UserStorageUsage.class
+        );
+    }
+    
+    /**
+     * Trừ nhiều file của cùng một user trong một lần cập nhật
+     */
+    public void recordRemoved(String userEmail, List<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<String, Long> bytesByType = new HashMap<>();
+        Map<String, Long> filesByType = new HashMap<>();
+        long totalBytes = 0;
+        for (FileMetadata file : files) {
+            bytesByType.merge(file.getFileType(), file.getFileSize(), Long::sum);
+            filesByType.merge(file.getFileType(), 1L, Long::sum);
+            totalBytes += file.getFileSize();
+        }
+        Update update = new Update()
+            .inc("totalBytes", -totalBytes)
+            .inc("totalFiles", -files.size())
+            .set("updatedAt", LocalDateTime.now());
+        bytesByType.forEach((type, bytes) -> update.inc("bytesByType." + type, -bytes));
+        filesByType.forEach((type, count) -> update.inc("filesByType." + type, -count));
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userEmail)), update, UserStorageUsage.class);
+    }
+    
+    /**
+     * Đặt quota riêng cho user; null để quay về quota mặc định.
+     */
+    public StorageUsageResponse setQuota(String userEmail, Long quotaBytes) {
+        if (quotaBytes != null && quotaBytes < 0) {
+            throw new IllegalArgumentException("Quota không được âm");
+        }
+        Update update = quotaBytes != null ? new Update().set("quotaBytes", quotaBytes) : new Update().unset("quotaBytes");
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userEmail)), update, UserStorageUsage.class);
+        return getUsage(userEmail);
+    }
+    
+    /**
+     * Đánh dấu dung lượng của user sắp thay đổi mà chưa biết bao nhiêu (cập nhật updatedAt),
+     * để reconcile không ghi đè bộ đếm trong lúc thao tác đang chạy.
+     */
+    public void touch(String userEmail) {
+        mongoTemplate.upsert(
+            new Query(Criteria.where("_id").is(userEmail)),
+            new Update().set("updatedAt", LocalDateTime.now()),
+            UserStorageUsage.class
+        );
+    }
+    
+    /**
+     * Tính lại bộ đếm từ file_metadata từng user một và sửa những user bị lệch.
+     * <p>
+     * Mọi thao tác đổi dung lượng cập nhật updatedAt trước khi đổi file_metadata, nên một user được ghi đè chỉ khi
+     * updatedAt đã cũ hơn app.storage.usage.reconcile-grace và không đổi trong lúc tính (ghi có điều kiện).
+     * User đang thay đổi được thử lại vài lần rồi để cho lần chạy sau.
+     *
+     * @return số user đã được sửa
+     */
+    @Scheduled(cron = "${app.storage.usage.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        Set<String> users = new HashSet<>();
+        Aggregation owners = Aggregation.newAggregation(Aggregation.group("uploadedBy"));
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(owners, FileMetadata.class, Document.class)) {
+            rows.forEach(row -> users.add(row.getString("_id")));
+        }
+        Query counters = new Query();
+        counters.fields().include("_id");
+        mongoTemplate.find(counters, UserStorageUsage.class).forEach(usage -> users.add(usage.getId()));
+        
+        int corrected = 0;
+        int busy = 0;
+        for (String userEmail : users) {
+            Boolean result = reconcileUser(userEmail);
+            if (result == null) {
+                busy++;
+            } else if (result) {
+                corrected++;
+            }
+        }
+        
+        if (corrected > 0 || busy > 0) {
+            log.info("Đã đồng bộ lại dung lượng của {} user, bỏ qua {} user đang thay đổi", corrected, busy);
+        }
+        return corrected;
+    }
+    
+    /**
+     * @return true nếu đã sửa, false nếu không lệch, null nếu user đang thay đổi
+     */
+    private Boolean reconcileUser(String userEmail) {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            UserStorageUsage current = find(userEmail);
+            LocalDateTime updatedAt = current != null ? current.getUpdatedAt() : null;
+            if (updatedAt != null && updatedAt.isAfter(LocalDateTime.now().minus(Duration.ofMillis(reconcileGraceMillis)))) {
+                // An upload or delete may be between its counter update and its metadata write
+                return null;
+            }
+            UserStorageUsage expected = computeUsage(userEmail);
+            if (sameCounters(current != null ? current : new UserStorageUsage(userEmail), expected)) {
+                return false;
+            }
+            if (overwriteCounters(expected, updatedAt)) {
+                return true;
+            }
+        }
+        return null;
+    }
+    
+    private UserStorageUsage computeUsage(String userEmail) {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("uploadedBy").is(userEmail)),
+            Aggregation.group("fileType")
+                .sum("fileSize").as("bytes")
+                .count().as("files")
+        );
+        UserStorageUsage usage = new UserStorageUsage(userEmail);
+        for (Document row : mongoTemplate.aggregate(aggregation, FileMetadata.class, Document.class).getMappedResults()) {
+            String fileType = row.getString("_id");
+            long bytes = ((Number) row.get("bytes")).longValue();
+            long files = ((Number) row.get("files")).longValue();
+            usage.setTotalBytes(usage.getTotalBytes() + bytes);
+            usage.setTotalFiles(usage.getTotalFiles() + files);
+            usage.getBytesByType().merge(fileType, bytes, Long::sum);
+            usage.getFilesByType().merge(fileType, files, Long::sum);
+        }
+        return usage;
+    }
+    
+    /**
+     * Ghi đè bộ đếm, chỉ khi updatedAt vẫn là giá trị đã đọc trước khi tính.
+     *
+     * @return false nếu bộ đếm đã thay đổi trong lúc tính
+     */
+    private boolean overwriteCounters(UserStorageUsage usage, LocalDateTime expectedUpdatedAt) {
+        // quotaBytes is left untouched; a null updatedAt also matches a missing document, which the upsert creates
+        Query unchanged = new Query(Criteria.where("_id").is(usage.getId()).and("updatedAt").is(expectedUpdatedAt));
+        try {
+            UpdateResult result = mongoTemplate.upsert(
+                unchanged,
+                new Update()
+                    .set("totalBytes", usage.getTotalBytes())
+                    .set("totalFiles", usage.getTotalFiles())
+                    .set("bytesByType", usage.getBytesByType())
+                    .set("filesByType", usage.getFilesByType())
+                    .set("updatedAt", LocalDateTime.now()),
+                UserStorageUsage.class
+            );
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // The document exists with another updatedAt, so the upsert tried to insert a second one
+            return false;
+        }
+    }
+    
+    private static boolean sameCounters(UserStorageUsage a, UserStorageUsage b) {
+        return a.getTotalBytes() == b.getTotalBytes()
+            && a.getTotalFiles() == b.getTotalFiles()
+            && Objects.equals(withoutZeros(a.getBytesByType()), withoutZeros(b.getBytesByType()))
+            && Objects.equals(withoutZeros(a.getFilesByType()), withoutZeros(b.getFilesByType()));
+    }
+    
+    private static Map<String, Long> withoutZeros(Map<String, Long> counts) {
+        Map<String, Long> result = new HashMap<>();
+        if (counts != null) {
+            counts.forEach((type, count) -> {
+                if (count != null && count != 0) {
+                    result.put(type, count);
+                }
+            });
+        }
+        return result;
+    }
+    
+    private static Update increment(String fileType, long bytes, long files) {
+        return new Update()
+            .inc("totalBytes", bytes)
+            .inc("totalFiles", files)
+            .inc("bytesByType." + fileType, bytes)
+            .inc("filesByType." + fileType, files)
+            .set("updatedAt", LocalDateTime.now());
+    }
+    
+    private UserStorageUsage find(String userEmail) {
+        return mongoTemplate.findById(userEmail, UserStorageUsage.class);
+    }
+    
+    private Long quotaOf(UserStorageUsage usage) {
+        if (usage != null && usage.getQuotaBytes() != null) {
+            return usage.getQuotaBytes();
+        }
+        return defaultQuotaBytes > 0 ? defaultQuotaBytes : null;
+    }
+    
+    private static QuotaExceededException exceeded(long quota) {
+        return new QuotaExceededException("Vượt quá dung lượng cho phép (" + quota + " bytes)");
+    }
+}
@@ -0,0 +1,152 @@
+package com.appp2p.authservice.service;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.FileThumbnail;
+import com.appp2p.authservice.repository.FileThumbnailRepository;
+import com.appp2p.authservice.storage.BlobStoreRegistry;
+import com.appp2p.authservice.util.ThumbnailRenderer;
+
+/**
+ * Tạo thumbnail cho file IMAGE ở background, trên một pool riêng có giới hạn.
+ * Việc không vào được hàng đợi (pool đầy, server khởi động lại...) vẫn ở trạng thái PENDING và được job định kỳ thử lại.
+ */
+@Service
+public class ThumbnailService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+    
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_READY = "READY";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    public static final String VARIANT_SMALL = "small";
+    public static final String VARIANT_MEDIUM = "medium";
+    
+    // Longest edge in pixels: grid tiles and full-width previews
+    private static final Map<String, Integer> VARIANTS = Map.of(
+        VARIANT_SMALL, 256,
+        VARIANT_MEDIUM, 1024
+    );
+    
+    @Autowired
+    private BlobStoreRegistry blobStoreRegistry;
+    
+    @Autowired
+    private FileThumbnailRepository fileThumbnailRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    @Qualifier("thumbnailTaskExecutor")
+    private ThreadPoolTaskExecutor thumbnailTaskExecutor;
+    
+    // Files queued or being rendered on this node
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    
+    public static boolean isSupportedVariant(String variant) {
+        return VARIANTS.containsKey(variant);
+    }
+    
+    /**
+     * Đưa file vào hàng đợi tạo thumbnail. Không bao giờ chặn thread gọi.
+     */
+    public void requestThumbnails(FileMetadata metadata) {
+        if (!inFlight.add(metadata.getId())) {
+            return;
+        }
+        try {
+            thumbnailTaskExecutor.execute(() -> generate(metadata));
+        } catch (TaskRejectedException e) {
+            // Stays PENDING; the sweep picks it up once the queue drains
+            inFlight.remove(metadata.getId());
+            log.debug("Hàng đợi thumbnail đầy, bỏ qua file {}", metadata.getId());
+        }
+    }
+    
+    public Optional<FileThumbnail> getThumbnail(String fileId, String variant) {
+        return fileThumbnailRepository.findById(FileThumbnail.idOf(fileId, variant));
+    }
+    
+    public void deleteThumbnails(String fileId) {
+        fileThumbnailRepository.deleteByFileId(fileId);
+    }
+    
+    public void deleteThumbnails(Collection<String> fileIds) {
+        mongoTemplate.remove(new Query(Criteria.where("fileId").in(fileIds)), FileThumbnail.class);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.thumbnails.retry-interval:60000}")
+    public void requeuePending() {
+        int capacity = thumbnailTaskExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (capacity <= 0) {
+            return;
+        }
+        // Images uploaded before thumbnails existed have no status yet and get backfilled here
+        Query query = new Query(Criteria.where("fileType").is("IMAGE")
+            .and("thumbnailStatus").in(STATUS_PENDING, null)
+            .and("_id").nin(inFlight))
+            .limit(capacity);
+        for (FileMetadata metadata : mongoTemplate.find(query, FileMetadata.class)) {
+            requestThumbnails(metadata);
+        }
+    }
+    
+    private void generate(FileMetadata metadata) {
+        try {
+            List<String> variants = List.copyOf(VARIANTS.keySet());
+            int[] sizes = variants.stream().mapToInt(VARIANTS::get).toArray();
+            
+            List<ThumbnailRenderer.Rendered> rendered;
+            try (InputStream in = blobStoreRegistry.get(metadata.getStorageBackend())
+                    .openRange(metadata.getGridFsId(), 0, metadata.getFileSize())) {
+                rendered = ThumbnailRenderer.render(in, sizes);
+            }
+            
+            for (int i = 0; i < variants.size(); i++) {
+                ThumbnailRenderer.Rendered r = rendered.get(i);
+                fileThumbnailRepository.save(new FileThumbnail(
+                    metadata.getId(), variants.get(i), r.width(), r.height(), r.contentType(), r.data()));
+            }
+            
+            if (!updateStatus(metadata.getId(), STATUS_READY)) {
+                // File was deleted while we were rendering
+                deleteThumbnails(metadata.getId());
+            }
+        } catch (Exception e) {
+            log.warn("Không thể tạo thumbnail cho file {}: {}", metadata.getId(), e.getMessage());
+            updateStatus(metadata.getId(), STATUS_FAILED);
+        } finally {
+            inFlight.remove(metadata.getId());
+        }
+    }
+    
+    private boolean updateStatus(String fileId, String status) {
+        return mongoTemplate.updateFirst(
+            new Query(Criteria.where("_id").is(fileId)),
+            new Update().set("thumbnailStatus", status),
+            FileMetadata.class
+        ).getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,316 @@
+package com.appp2p.authservice.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.CreateUploadSessionRequest;
+import com.appp2p.authservice.dto.FileUploadResponse;
+import com.appp2p.authservice.dto.UploadSessionResponse;
+import com.appp2p.authservice.model.UploadSession;
+import com.appp2p.authservice.repository.FileMetadataRepository;
+import com.appp2p.authservice.repository.UploadSessionRepository;
+import com.appp2p.authservice.storage.BlobStore;
+import com.appp2p.authservice.storage.BlobStoreRegistry;
+
+/**
+ * Resumable uploads: every client chunk is written straight into the storage
+ * backend at its offset (fs.chunks documents for GridFS, a positional write for
+ * the filesystem store), so the server never holds the whole file. The blob only
+ * becomes readable once the session is completed.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileService fileService;
+    
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private BlobStoreRegistry blobStoreRegistry;
+
+    @Value("${app.upload.chunk-size:2088960}")
+    private int defaultChunkSize;
+
+    @Value("${app.upload.session.expiration:86400000}")
+    private long sessionExpiration;
+
+    @Value("${app.upload.session.completion-lease:3600000}")
+    private long completionLease;
+
+    public UploadSessionResponse createSession(CreateUploadSessionRequest request, String userEmail) throws IOException {
+        BlobStore blobStore = blobStoreRegistry.getActive();
+        int alignment = blobStore.getUploadPartAlignment();
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        if (chunkSize <= 0 || chunkSize % alignment != 0) {
+            throw new IllegalArgumentException("Kích thước chunk phải là bội số của " + alignment + " bytes");
+        }
+        if (request.getTotalSize() <= 0) {
+            throw new IllegalArgumentException("Kích thước file phải lớn hơn 0");
+        }
+        storageUsageService.checkQuota(userEmail, request.getTotalSize());
+
+        UploadSession session = new UploadSession(
+            userEmail,
+            request.getFileName(),
+            request.getContentType(),
+            request.getTotalSize(),
+            chunkSize,
+            blobStore.getName(),
+            blobStore.beginUpload(request.getTotalSize()),
+            nextExpiry()
+        );
+        session = uploadSessionRepository.save(session);
+
+        return toResponse(session);
+    }
+
+    public UploadSessionResponse getSession(String sessionId, String userEmail) {
+        return toResponse(findOwnedSession(sessionId, userEmail));
+    }
+
+    /**
+     * Ghi một chunk của client vào GridFS. Gửi lại cùng index sẽ ghi đè chunk cũ nên có thể retry an toàn.
+     */
+    public UploadSessionResponse uploadChunk(String sessionId, int index, InputStream data,
+                                             long contentLength, String userEmail) throws IOException {
+        UploadSession session = findOwnedSession(sessionId, userEmail);
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new IllegalArgumentException("Chỉ số chunk không hợp lệ: " + index);
+        }
+
+        long expectedLength = session.getChunkLength(index);
+        if (contentLength >= 0 && contentLength != expectedLength) {
+            throw new IllegalArgumentException("Chunk " + index + " phải có đúng " + expectedLength + " bytes");
+        }
+
+        // Register the write while the session is still open; completion cannot claim it until the write is done
+        String token = new ObjectId().toHexString();
+        UploadSession open = mongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(sessionId).and("status").is(UploadSession.STATUS_ACTIVE)),
+            new Update()
+                .push("chunkWrites", new UploadSession.ChunkWrite(token, index, LocalDateTime.now()))
+                .set("expiresAt", nextExpiry()),
+            UploadSession.class
+        );
+        if (open == null) {
+            throw new IllegalArgumentException("Phiên upload đang được hoàn tất");
+        }
+
+        try {
+            long offset = (long) index * session.getChunkSize();
+            blobStoreRegistry.get(session.getStorageBackend())
+                .writeUploadPart(session.getUploadId(), offset, data, expectedLength);
+            if (data.read() != -1) {
+                throw new IllegalArgumentException("Chunk " + index + " vượt quá " + expectedLength + " bytes");
+            }
+        } catch (IOException | RuntimeException e) {
+            finishChunkWrite(sessionId, token, null);
+            throw e;
+        }
+
+        UploadSession updated = finishChunkWrite(sessionId, token, index);
+        if (updated == null) {
+            throw new IllegalArgumentException("Phiên upload không tồn tại");
+        }
+        return toResponse(updated);
+    }
+
+    /**
+     * Bỏ lượt ghi khỏi chunkWrites, và đánh dấu chunk đã nhận nếu ghi thành công (receivedIndex khác null)
+     */
+    private UploadSession finishChunkWrite(String sessionId, String token, Integer receivedIndex) {
+        Update update = new Update()
+            .pull("chunkWrites", new Document("token", token))
+            .set("expiresAt", nextExpiry());
+        if (receivedIndex != null) {
+            update.addToSet("receivedChunks", receivedIndex);
+        }
+        return mongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(sessionId)),
+            update,
+            FindAndModifyOptions.options().returnNew(true),
+            UploadSession.class
+        );
+    }
+
+    public FileUploadResponse completeSession(String sessionId, String userEmail) throws IOException {
+        UploadSession session = findOwnedSession(sessionId, userEmail);
+        if (session.getReceivedChunks().size() != session.getTotalChunks()) {
+            throw new IllegalArgumentException("Còn thiếu " + (session.getTotalChunks() - session.getReceivedChunks().size()) + " chunk");
+        }
+
+        // Only one request may finalize a session; if this node dies, cleanup takes the session once the lease runs out
+        // A chunk write that started longer ago than the session expiration belongs to a request that died
+        LocalDateTime deadWrites = LocalDateTime.now().minus(Duration.ofMillis(sessionExpiration));
+        UploadSession claimed = mongoTemplate.findAndModify(
+            new Query(Criteria.where("_id").is(sessionId)
+                .and("status").is(UploadSession.STATUS_ACTIVE)
+                .and("chunkWrites").not().elemMatch(Criteria.where("startedAt").gt(deadWrites))),
+            new Update()
+                .set("status", UploadSession.STATUS_COMPLETING)
+                .set("expiresAt", LocalDateTime.now().plus(Duration.ofMillis(completionLease))),
+            UploadSession.class
+        );
+        if (claimed == null) {
+            throw new IllegalArgumentException("Phiên upload đang được hoàn tất hoặc còn chunk đang tải lên");
+        }
+
+        String fileName = fileService.generateStoredFileName(session.getOriginalFileName());
+        String blobId;
+        try {
+            blobId = blobStoreRegistry.get(session.getStorageBackend()).completeUpload(
+                session.getUploadId(), session.getTotalSize(), fileName, session.getContentType());
+        } catch (IOException | RuntimeException e) {
+            // Let the client re-send whatever is missing
+            mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(sessionId)),
+                new Update().set("status", UploadSession.STATUS_ACTIVE).set("expiresAt", nextExpiry()),
+                UploadSession.class
+            );
+            throw e;
+        }
+
+        FileUploadResponse response;
+        try {
+            response = fileService.saveMetadata(
+                fileName,
+                session.getOriginalFileName(),
+                session.getContentType(),
+                session.getTotalSize(),
+                blobId,
+                session.getStorageBackend(),
+                null, // Chunks arrive out of order, so no content hash and no deduplication
+                userEmail
+            );
+        } finally {
+            // On failure saveMetadata has already dropped the assembled blob, so the session cannot be retried
+            uploadSessionRepository.deleteById(sessionId);
+        }
+        return response;
+    }
+
+    public void abortSession(String sessionId, String userEmail) {
+        discard(findOwnedSession(sessionId, userEmail));
+    }
+
+    /**
+     * Dọn phiên hết hạn, kể cả phiên COMPLETING bị bỏ dở khi node chết giữa lúc hoàn tất (hết lease).
+     */
+    @Scheduled(fixedDelayString = "${app.upload.session.cleanup-interval:600000}")
+    public void cleanupExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        int discarded = 0;
+        for (UploadSession session : uploadSessionRepository.findByExpiresAtBefore(now)) {
+            // Removing first means a session that was just extended or claimed is left alone
+            UploadSession removed = mongoTemplate.findAndRemove(
+                new Query(Criteria.where("_id").is(session.getId()).and("expiresAt").lt(now)),
+                UploadSession.class
+            );
+            if (removed == null) {
+                continue;
+            }
+            try {
+                discardUpload(removed);
+                discarded++;
+            } catch (RuntimeException e) {
+                log.warn("Không thể dọn dữ liệu của phiên upload {}: {}", removed.getId(), e.getMessage());
+            }
+        }
+        if (discarded > 0) {
+            log.info("Đã dọn {} phiên upload hết hạn", discarded);
+        }
+    }
+
+    private void discard(UploadSession session) {
+        discardUpload(session);
+        uploadSessionRepository.deleteById(session.getId());
+    }
+
+    private void discardUpload(UploadSession session) {
+        BlobStore blobStore = blobStoreRegistry.get(session.getStorageBackend());
+        if (UploadSession.STATUS_COMPLETING.equals(session.getStatus())) {
+            if (fileMetadataRepository.findByGridFsId(session.getUploadId()).isPresent()) {
+                // Completion went through and only the session delete was lost
+                return;
+            }
+            // The upload may already have been sealed into a blob
+            blobStore.delete(session.getUploadId());
+        }
+        blobStore.abortUpload(session.getUploadId());
+    }
+
+    private UploadSession findOwnedSession(String sessionId, String userEmail) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+            .orElseThrow(() -> new IllegalArgumentException("Phiên upload không tồn tại"));
+
+        // Check if user owns the session
+        if (!session.getUploadedBy().equals(userEmail)) {
+            throw new IllegalArgumentException("Bạn không có quyền truy cập phiên upload này");
+        }
+        if (session.isExpired()) {
+            throw new IllegalArgumentException("Phiên upload đã hết hạn");
+        }
+        return session;
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        List<Integer> received = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        long receivedBytes = 0;
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            if (session.getReceivedChunks().contains(i)) {
+                received.add(i);
+                receivedBytes += session.getChunkLength(i);
+            } else {
+                missing.add(i);
+            }
+        }
+
+        return new UploadSessionResponse(
+            session.getId(),
+            session.getOriginalFileName(),
+            session.getTotalSize(),
+            session.getChunkSize(),
+            session.getTotalChunks(),
+            received,
+            missing,
+            receivedBytes,
+            session.getExpiresAt()
+        );
+    }
+
+    private LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plus(Duration.ofMillis(sessionExpiration));
+    }
+}
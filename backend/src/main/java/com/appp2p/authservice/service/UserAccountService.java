@@ -0,0 +1,46 @@
+package com.appp2p.authservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.cache.UserDetailsCache;
+import com.appp2p.authservice.model.User;
+import com.appp2p.authservice.security.UserSecurityVersions;
+
+/**
+ * Thao tác quản trị trên tài khoản user.
+ */
+@Service
+public class UserAccountService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserSecurityVersions userSecurityVersions;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * Khóa hoặc mở khóa tài khoản. Khóa sẽ thu hồi luôn mọi token đang dùng của user.
+     */
+    public void setEnabled(String email, boolean enabled) {
+        long matched = mongoTemplate.updateFirst(
+            new Query(Criteria.where("email").is(email)),
+            new Update().set("enabled", enabled),
+            User.class
+        ).getMatchedCount();
+        if (matched == 0) {
+            throw new IllegalArgumentException("Không tìm thấy người dùng");
+        }
+        if (!enabled) {
+            userSecurityVersions.bump(email);
+        }
+        userDetailsCache.invalidate(email);
+    }
+}
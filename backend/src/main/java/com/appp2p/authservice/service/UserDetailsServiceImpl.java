@@ -1,24 +1,56 @@
 package com.appp2p.authservice.service;
 
+import com.appp2p.authservice.cache.UserDetailsCache;
 import com.appp2p.authservice.model.User;
 import com.appp2p.authservice.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Không tìm thấy người dùng với email: " + email));
+        User user = userDetailsCache.get(email, key -> userRepository.findByEmail(key).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("Không tìm thấy người dùng với email: " + email);
+        }
         
         return user;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Được DaoAuthenticationProvider gọi sau khi đăng nhập thành công nếu hash dùng cost cũ.
+     * Chỉ ghi trường password, không ghi đè cả document.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        mongoTemplate.updateFirst(
+            new Query(Criteria.where("email").is(user.getUsername())),
+            new Update().set("password", newPassword),
+            User.class
+        );
+        userDetailsCache.invalidate(user.getUsername());
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,313 @@
+package com.appp2p.authservice.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.dto.RegisterRequest;
+import com.appp2p.authservice.dto.UserImportResponse;
+import com.appp2p.authservice.dto.UserImportResponse.RowResult;
+import com.appp2p.authservice.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Tạo nhiều tài khoản từ một luồng CSV hoặc NDJSON. Đọc và xử lý theo lô: kiểm tra dữ liệu bằng đúng các
+ * ràng buộc của RegisterRequest, băm mật khẩu song song trên pool riêng, rồi insert bằng bulk write không
+ * theo thứ tự; email trùng do unique index trên email báo lại, không cần existsByEmail từng dòng.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("userImportTaskExecutor")
+    private ThreadPoolTaskExecutor userImportTaskExecutor;
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.users.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.users.import.max-rows:10000}")
+    private int maxRows;
+
+    // Hashes on the import pool, not on the login pool, so an import never turns logins away
+    private BCryptPasswordEncoder encoder;
+
+    @PostConstruct
+    void init() {
+        encoder = new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    public UserImportResponse importUsers(InputStream in, String format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = FORMAT_CSV.equals(format) ? readCsvHeader(reader) : null;
+
+        List<RowResult> results = new ArrayList<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        int rowNumber = 0;
+        int imported = 0;
+        boolean truncated = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (rowNumber == maxRows) {
+                truncated = true;
+                break;
+            }
+            rowNumber++;
+            batch.add(columns != null ? parseCsvRow(rowNumber, line, columns) : parseJsonRow(rowNumber, line));
+            if (batch.size() == batchSize) {
+                imported += processBatch(batch, results);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += processBatch(batch, results);
+        }
+        UserImportResponse response = new UserImportResponse(rowNumber, imported, results);
+        response.setTruncated(truncated);
+        return response;
+    }
+
+    private int processBatch(List<ImportRow> batch, List<RowResult> results) {
+        Map<ImportRow, RowResult> outcome = new HashMap<>();
+
+        // Validate, then hash every valid row in parallel
+        Map<ImportRow, Future<String>> hashes = new HashMap<>();
+        for (ImportRow row : batch) {
+            String error = row.error() != null ? row.error() : validate(row);
+            if (error != null) {
+                outcome.put(row, new RowResult(row.row(), row.email(), UserImportResponse.STATUS_INVALID, error));
+            } else {
+                // The pool runs overflow on the calling thread, which throttles the reader
+                hashes.put(row, userImportTaskExecutor.submit(() -> encoder.encode(row.password())));
+            }
+        }
+        List<ImportRow> rows = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (ImportRow row : batch) {
+            Future<String> hash = hashes.get(row);
+            if (hash == null) {
+                continue;
+            }
+            try {
+                User user = new User(row.email(), hash.get(), row.firstName(), row.lastName());
+                rows.add(row);
+                users.add(user);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcome.put(row, new RowResult(row.row(), row.email(), UserImportResponse.STATUS_FAILED, "Bị hủy"));
+            } catch (ExecutionException e) {
+                outcome.put(row, new RowResult(row.row(), row.email(), UserImportResponse.STATUS_FAILED, e.getCause().getMessage()));
+            }
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        if (!users.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+            } catch (BulkOperationException e) {
+                // Unordered: every other insert went through
+                e.getErrors().forEach(error -> {
+                    ImportRow row = rows.get(error.getIndex());
+                    rejected.add(error.getIndex());
+                    outcome.put(row, error.getCode() == DUPLICATE_KEY
+                        ? new RowResult(row.row(), row.email(), UserImportResponse.STATUS_DUPLICATE, "Email đã được sử dụng")
+                        : new RowResult(row.row(), row.email(), UserImportResponse.STATUS_FAILED, error.getMessage()));
+                });
+            }
+        }
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (!rejected.contains(i)) {
+                ImportRow row = rows.get(i);
+                outcome.put(row, new RowResult(row.row(), row.email(), UserImportResponse.STATUS_IMPORTED, null));
+                created.add(users.get(i));
+            }
+        }
+
+        try {
+            emailService.sendWelcomeEmails(created);
+        } catch (Exception e) {
+            // Accounts exist either way; only the greeting is lost
+            log.warn("Không thể xếp hàng email chào mừng cho {} user: {}", created.size(), e.getMessage());
+        }
+
+        for (ImportRow row : batch) {
+            results.add(outcome.get(row));
+        }
+        return created.size();
+    }
+
+    private String validate(ImportRow row) {
+        RegisterRequest request = new RegisterRequest(row.email(), row.password(), row.password());
+        request.setFirstName(row.firstName());
+        request.setLastName(row.lastName());
+        Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("File CSV trống");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("email") || !columns.containsKey("password")) {
+            throw new IllegalArgumentException("File CSV phải có cột email và password");
+        }
+        return columns;
+    }
+
+    private static ImportRow parseCsvRow(int rowNumber, String line, Map<String, Integer> columns) {
+        List<String> values;
+        try {
+            values = parseCsvLine(line);
+        } catch (IllegalArgumentException e) {
+            return ImportRow.invalid(rowNumber, e.getMessage());
+        }
+        return new ImportRow(rowNumber,
+            column(values, columns, "email"),
+            column(values, columns, "password"),
+            column(values, columns, "firstname"),
+            column(values, columns, "lastname"),
+            null);
+    }
+
+    private ImportRow parseJsonRow(int rowNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            return ImportRow.invalid(rowNumber, "Dòng không phải JSON hợp lệ");
+        }
+        if (!node.isObject()) {
+            return ImportRow.invalid(rowNumber, "Dòng không phải JSON object");
+        }
+        return new ImportRow(rowNumber, text(node, "email"), text(node, "password"),
+            text(node, "firstName"), text(node, "lastName"), null);
+    }
+
+    /**
+     * Tách một dòng CSV (RFC 4180, không hỗ trợ xuống dòng trong ô): ô có thể nằm trong dấu nháy kép,
+     * "" trong ô là một dấu nháy.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' && current.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Thiếu dấu nháy đóng");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() ? value.asText().trim() : null;
+    }
+
+    // Row numbers are unique, so rows work as map keys
+    private record ImportRow(int row, String email, String password, String firstName, String lastName, String error) {
+
+        static ImportRow invalid(int row, String error) {
+            return new ImportRow(row, null, null, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.appp2p.authservice.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.attribute.FileTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.repository.FileMetadataRepository;
+
+/**
+ * Ghi nhiều file thành một ZIP, stream thẳng ra response: mỗi lúc chỉ mở một file và bộ nhớ dùng cố định.
+ * ZipOutputStream tự chuyển sang ZIP64 khi archive vượt 4GB hoặc 65535 entry.
+ */
+@Service
+public class ZipExportService {
+    
+    // Formats that are already compressed; deflating them again only burns CPU
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+        "image/jpeg", "image/png", "image/gif", "image/webp", "image/heic", "image/heif", "image/avif",
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+        "application/x-rar-compressed", "application/vnd.rar", "application/x-bzip2", "application/x-xz",
+        "application/pdf"
+    );
+    
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+    
+    @Autowired
+    private FileService fileService;
+    
+    @Value("${app.files.zip.max-files:10000}")
+    private int maxFiles;
+    
+    /**
+     * Lấy danh sách file cần nén: theo id (giữ thứ tự gửi lên) hoặc theo loại file.
+     *
+     * @throws IllegalArgumentException nếu có file không tồn tại hoặc không có file nào
+     * @throws IllegalStateException nếu vượt quá số file cho phép
+     */
+    public List<FileMetadata> resolveSelection(List<String> fileIds, String fileType, String userEmail) {
+        List<FileMetadata> files;
+        if (fileIds != null && !fileIds.isEmpty()) {
+            Set<String> ids = new LinkedHashSet<>(fileIds);
+            if (ids.size() > maxFiles) {
+                throw new IllegalStateException("Mỗi file ZIP chỉ chứa tối đa " + maxFiles + " file");
+            }
+            Map<String, FileMetadata> found = fileMetadataRepository.findAllById(ids).stream()
+                .filter(metadata -> metadata.getUploadedBy().equals(userEmail))
+                .collect(Collectors.toMap(FileMetadata::getId, Function.identity()));
+            if (found.size() != ids.size()) {
+                // Files owned by someone else are reported the same way as missing ones
+                throw new IllegalArgumentException("Có file không tồn tại");
+            }
+            files = ids.stream().map(found::get).collect(Collectors.toList());
+        } else if (fileType != null && !fileType.isBlank()) {
+            files = fileMetadataRepository.findByFileTypeAndUploadedByOrderByUploadedAtDesc(
+                fileType.toUpperCase(Locale.ROOT), userEmail);
+            if (files.size() > maxFiles) {
+                throw new IllegalStateException("Mỗi file ZIP chỉ chứa tối đa " + maxFiles + " file");
+            }
+        } else {
+            throw new IllegalStateException("Cần chọn file hoặc loại file");
+        }
+        
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Không có file nào để tải xuống");
+        }
+        return files;
+    }
+    
+    public void writeZip(List<FileMetadata> files, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Set<String> usedNames = new HashSet<>();
+        
+        for (FileMetadata metadata : files) {
+            // Per-entry level: level 0 still needs no CRC up front, unlike STORED entries
+            zip.setLevel(isCompressed(metadata.getContentType()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            
+            ZipEntry entry = new ZipEntry(uniqueName(entryName(metadata.getOriginalFileName()), usedNames));
+            entry.setLastModifiedTime(FileTime.from(metadata.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant()));
+            zip.putNextEntry(entry);
+            try (InputStream in = fileService.openRange(metadata, 0, metadata.getFileSize())) {
+                in.transferTo(zip);
+            }
+            zip.closeEntry();
+        }
+        // Writes the central directory; the servlet container closes the response stream
+        zip.finish();
+        zip.flush();
+    }
+    
+    static boolean isCompressed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters).trim();
+        }
+        return type.startsWith("video/") || type.startsWith("audio/") || COMPRESSED_TYPES.contains(type);
+    }
+    
+    private static String entryName(String originalFileName) {
+        String name = originalFileName == null || originalFileName.isBlank() ? "file" : originalFileName;
+        // Entry names must not create folders or escape the extraction directory
+        return name.replace('/', '_').replace('\\', '_');
+    }
+    
+    private static String uniqueName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.appp2p.authservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Nơi lưu nội dung file. FileService chỉ làm việc qua interface này, còn metadata luôn nằm trong MongoDB.
+ * Blob là bất biến: chỉ được ghi một lần rồi đọc hoặc xóa.
+ */
+public interface BlobStore {
+    
+    /**
+     * Tên backend, được lưu cùng metadata để biết blob nằm ở đâu (ví dụ "gridfs", "filesystem")
+     */
+    String getName();
+    
+    /**
+     * Ghi toàn bộ stream thành một blob mới.
+     *
+     * @return id của blob
+     */
+    String store(InputStream inputStream, String fileName, String contentType) throws IOException;
+    
+    /**
+     * Mở stream cho đoạn [start, start + length) của blob mà không đọc phần phía trước.
+     */
+    InputStream openRange(String blobId, long start, long length) throws IOException;
+    
+    void delete(String blobId);
+    
+    /**
+     * Xóa nhiều blob. Backend có thể xóa theo lô thay vì từng blob một.
+     */
+    default void deleteAll(Collection<String> blobIds) {
+        for (String blobId : blobIds) {
+            delete(blobId);
+        }
+    }
+    
+    boolean exists(String blobId);
+    
+    /**
+     * Đường dẫn file cục bộ của blob, dùng để gửi file zero-copy (sendfile). Backend không có file cục bộ trả về empty.
+     */
+    default Optional<Path> resolveLocalPath(String blobId) {
+        return Optional.empty();
+    }
+    
+    // Resumable uploads: parts are written at arbitrary offsets, then the blob is sealed
+    
+    /**
+     * Offset của mỗi part phải là bội số của giá trị này
+     */
+    int getUploadPartAlignment();
+    
+    /**
+     * Bắt đầu một upload nhiều phần.
+     *
+     * @return id của upload, dùng cho các lời gọi tiếp theo
+     */
+    String beginUpload(long totalSize) throws IOException;
+    
+    /**
+     * Ghi đúng {@code length} byte từ stream vào vị trí {@code offset}. Ghi lại cùng offset sẽ ghi đè.
+     */
+    void writeUploadPart(String uploadId, long offset, InputStream data, long length) throws IOException;
+    
+    /**
+     * Kiểm tra dữ liệu đã đủ và biến upload thành blob có thể đọc được.
+     *
+     * @return id của blob
+     */
+    String completeUpload(String uploadId, long totalSize, String fileName, String contentType) throws IOException;
+    
+    void abortUpload(String uploadId);
+}
@@ -0,0 +1,50 @@
+package com.appp2p.authservice.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tập hợp các BlobStore. Blob mới được ghi vào backend cấu hình bởi app.storage.backend,
+ * còn blob cũ được đọc từ backend ghi trong metadata nên có thể đổi backend mà không cần migrate ngay.
+ */
+@Component
+public class BlobStoreRegistry {
+    
+    // Metadata written before backends existed has no backend name
+    public static final String DEFAULT_BACKEND = GridFsBlobStore.NAME;
+    
+    private final Map<String, BlobStore> stores = new LinkedHashMap<>();
+    private final BlobStore active;
+    
+    public BlobStoreRegistry(List<BlobStore> blobStores,
+                             @Value("${app.storage.backend:gridfs}") String activeBackend) {
+        for (BlobStore store : blobStores) {
+            stores.put(store.getName(), store);
+        }
+        this.active = stores.get(activeBackend);
+        if (this.active == null) {
+            throw new IllegalStateException("Không có storage backend: " + activeBackend + " (hỗ trợ: " + stores.keySet() + ")");
+        }
+    }
+    
+    public BlobStore getActive() {
+        return active;
+    }
+    
+    public BlobStore get(String backend) {
+        BlobStore store = stores.get(backend != null ? backend : DEFAULT_BACKEND);
+        if (store == null) {
+            throw new IllegalArgumentException("Storage backend không tồn tại: " + backend);
+        }
+        return store;
+    }
+    
+    public Set<String> getBackendNames() {
+        return stores.keySet();
+    }
+}
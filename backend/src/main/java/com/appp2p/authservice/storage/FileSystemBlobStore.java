@@ -0,0 +1,247 @@
+package com.appp2p.authservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lưu blob thành file trên ổ đĩa cục bộ hoặc ổ mount (NFS, EFS...).
+ * Blob nằm tại {root}/{4 ký tự đầu của id}/{id}; id là ObjectId nên mỗi thư mục chứa khoảng 18 giờ upload.
+ * Ghi qua FileChannel vào file tạm rồi đổi tên nguyên tử, nên người đọc không bao giờ thấy blob dở dang.
+ */
+@Component
+public class FileSystemBlobStore implements BlobStore {
+
+    public static final String NAME = "filesystem";
+
+    private static final Pattern BLOB_ID = Pattern.compile("[0-9a-f]{24}");
+
+    // Bytes moved per FileChannel.transferFrom call
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+
+    // Upload parts can start anywhere; keep the same alignment as GridFS so clients need not care
+    private static final int PART_ALIGNMENT = 255 * 1024;
+
+    private final Path root;
+    private final Path uploadDir;
+
+    public FileSystemBlobStore(@Value("${app.storage.filesystem.root:./uploads}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.uploadDir = this.root.resolve(".uploads");
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String store(InputStream inputStream, String fileName, String contentType) throws IOException {
+        String blobId = new ObjectId().toHexString();
+        Path temp = partFile(blobId);
+        Files.createDirectories(temp.getParent());
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(inputStream)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                    position += transferred;
+                }
+                channel.force(false);
+            }
+            publish(temp, blobPath(blobId));
+            return blobId;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream openRange(String blobId, long start, long length) throws IOException {
+        Path path = blobPath(blobId);
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("File không tồn tại trong storage");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(start);
+        return new RangeInputStream(channel, length);
+    }
+
+    @Override
+    public void delete(String blobId) {
+        try {
+            Files.deleteIfExists(blobPath(blobId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể xóa blob " + blobId, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String blobId) {
+        return Files.exists(blobPath(blobId));
+    }
+
+    @Override
+    public Optional<Path> resolveLocalPath(String blobId) {
+        Path path = blobPath(blobId);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public int getUploadPartAlignment() {
+        return PART_ALIGNMENT;
+    }
+
+    @Override
+    public String beginUpload(long totalSize) throws IOException {
+        String uploadId = new ObjectId().toHexString();
+        Path part = partFile(uploadId);
+        Files.createDirectories(part.getParent());
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            // Sparse on most filesystems; parts fill it in any order
+            channel.write(ByteBuffer.allocate(1), totalSize - 1);
+        }
+        return uploadId;
+    }
+
+    @Override
+    public void writeUploadPart(String uploadId, long offset, InputStream data, long length) throws IOException {
+        Path part = partFile(uploadId);
+        if (!Files.exists(part)) {
+            throw new IllegalArgumentException("Upload không tồn tại");
+        }
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(data);
+            long written = 0;
+            long transferred;
+            while (written < length
+                    && (transferred = channel.transferFrom(source, offset + written, Math.min(TRANSFER_SIZE, length - written))) > 0) {
+                written += transferred;
+            }
+            if (written < length) {
+                throw new IllegalArgumentException("Dữ liệu bị thiếu, cần " + length + " bytes");
+            }
+        }
+    }
+
+    @Override
+    public String completeUpload(String uploadId, long totalSize, String fileName, String contentType) throws IOException {
+        Path part = partFile(uploadId);
+        if (!Files.exists(part) || Files.size(part) != totalSize) {
+            throw new IllegalStateException("Dữ liệu upload không đầy đủ");
+        }
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+        publish(part, blobPath(uploadId));
+        return uploadId;
+    }
+
+    @Override
+    public void abortUpload(String uploadId) {
+        try {
+            Files.deleteIfExists(partFile(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể xóa upload " + uploadId, e);
+        }
+    }
+
+    Path blobPath(String blobId) {
+        if (blobId == null || !BLOB_ID.matcher(blobId).matches()) {
+            // Ids end up in file paths, so never accept anything but a hex ObjectId
+            throw new IllegalArgumentException("Blob id không hợp lệ");
+        }
+        return root.resolve(blobId.substring(0, 4)).resolve(blobId);
+    }
+
+    private Path partFile(String blobId) {
+        blobPath(blobId); // validate
+        return uploadDir.resolve(blobId + ".part");
+    }
+
+    private void publish(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    /**
+     * Đọc tối đa {@code remaining} byte từ vị trí hiện tại của FileChannel.
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long remaining;
+
+        RangeInputStream(FileChannel channel, long length) {
+            this.channel = channel;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+            if (read < 0) {
+                throw new IOException("File ngắn hơn kích thước trong metadata");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        /**
+         * Copy bằng FileChannel.transferTo thay vì vòng lặp read/write qua buffer của InputStream.
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            long total = 0;
+            WritableByteChannel target = Channels.newChannel(out);
+            while (remaining > 0) {
+                long sent = channel.transferTo(channel.position(), remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                channel.position(channel.position() + sent);
+                remaining -= sent;
+                total += sent;
+            }
+            return total;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
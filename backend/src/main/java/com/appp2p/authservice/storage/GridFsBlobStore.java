@@ -0,0 +1,220 @@
+package com.appp2p.authservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsUpload;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Lưu blob trong GridFS (bucket mặc định "fs").
+ * Upload nhiều phần ghi thẳng vào fs.chunks dưới một files_id cấp sẵn; document fs.files
+ * chỉ được tạo khi hoàn tất, lúc đó blob mới đọc được.
+ */
+@Component
+public class GridFsBlobStore implements BlobStore {
+
+    public static final String NAME = "gridfs";
+
+    private static final Logger log = LoggerFactory.getLogger(GridFsBlobStore.class);
+
+    private static final String FILES_COLLECTION = "fs.files";
+    private static final String CHUNKS_COLLECTION = "fs.chunks";
+
+    // Ids per $in when deleting many blobs
+    private static final int DELETE_BATCH_SIZE = 500;
+    
+    // Default chunk size used by the GridFS driver (255 KB)
+    private static final int CHUNK_SIZE = 255 * 1024;
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureChunkIndex() {
+        try {
+            // The driver creates this index on its first GridFS write; multipart uploads may come first
+            chunks().createIndex(Indexes.ascending("files_id", "n"), new IndexOptions().unique(true));
+        } catch (Exception e) {
+            log.warn("Không thể tạo index cho fs.chunks: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String store(InputStream inputStream, String fileName, String contentType) {
+        // Id chosen up front so chunks of a failed upload can be found: the driver only aborts
+        // (deletes what it wrote) when the stream throws an IOException
+        ObjectId filesId = new ObjectId();
+        GridFsUpload<ObjectId> upload = GridFsUpload.fromStream(inputStream)
+            .id(filesId)
+            .filename(fileName)
+            .contentType(contentType)
+            .build();
+        try {
+            // GridFS reads the stream one chunk at a time
+            return gridFsTemplate.store(upload).toHexString();
+        } catch (RuntimeException e) {
+            try {
+                chunks().deleteMany(Filters.eq("files_id", filesId));
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream openRange(String blobId, long start, long length) {
+        GridFSFile gridFSFile = gridFsTemplate.findOne(
+            new Query(Criteria.where("_id").is(blobId))
+        );
+
+        if (gridFSFile == null) {
+            throw new IllegalArgumentException("File không tồn tại trong GridFS");
+        }
+
+        return new GridFsRangeInputStream(
+            chunks(),
+            gridFSFile.getObjectId(),
+            gridFSFile.getChunkSize(),
+            start,
+            length
+        );
+    }
+
+    @Override
+    public void delete(String blobId) {
+        gridFsTemplate.delete(new Query(Criteria.where("_id").is(blobId)));
+    }
+
+    /**
+     * Xóa fs.files rồi fs.chunks bằng $in theo lô, giống thứ tự của driver: blob hết đọc được trước khi mất dữ liệu.
+     */
+    @Override
+    public void deleteAll(Collection<String> blobIds) {
+        List<ObjectId> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        for (String blobId : blobIds) {
+            batch.add(new ObjectId(blobId));
+            if (batch.size() == DELETE_BATCH_SIZE) {
+                deleteBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch);
+        }
+    }
+    
+    private void deleteBatch(List<ObjectId> filesIds) {
+        mongoTemplate.getCollection(FILES_COLLECTION).deleteMany(Filters.in("_id", filesIds));
+        chunks().deleteMany(Filters.in("files_id", filesIds));
+    }
+    
+    @Override
+    public boolean exists(String blobId) {
+        return gridFsTemplate.findOne(new Query(Criteria.where("_id").is(blobId))) != null;
+    }
+
+    @Override
+    public int getUploadPartAlignment() {
+        return CHUNK_SIZE;
+    }
+
+    @Override
+    public String beginUpload(long totalSize) {
+        return new ObjectId().toHexString();
+    }
+
+    @Override
+    public void writeUploadPart(String uploadId, long offset, InputStream data, long length) throws IOException {
+        if (offset % CHUNK_SIZE != 0) {
+            throw new IllegalArgumentException("Offset phải là bội số của " + CHUNK_SIZE + " bytes");
+        }
+
+        ObjectId filesId = new ObjectId(uploadId);
+        int n = (int) (offset / CHUNK_SIZE);
+        long remaining = length;
+        byte[] buffer = new byte[CHUNK_SIZE];
+
+        while (remaining > 0) {
+            int pieceLength = (int) Math.min(buffer.length, remaining);
+            int read = data.readNBytes(buffer, 0, pieceLength);
+            if (read < pieceLength) {
+                throw new IllegalArgumentException("Dữ liệu bị thiếu, cần " + length + " bytes");
+            }
+            byte[] piece = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+            chunks().replaceOne(
+                Filters.and(Filters.eq("files_id", filesId), Filters.eq("n", n)),
+                new Document("files_id", filesId).append("n", n).append("data", new Binary(piece)),
+                new ReplaceOptions().upsert(true)
+            );
+            remaining -= read;
+            n++;
+        }
+    }
+
+    @Override
+    public String completeUpload(String uploadId, long totalSize, String fileName, String contentType) {
+        ObjectId filesId = new ObjectId(uploadId);
+        long expectedChunks = (totalSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long storedChunks = chunks().countDocuments(Filters.eq("files_id", filesId));
+        if (storedChunks != expectedChunks) {
+            throw new IllegalStateException("Dữ liệu chunk trong GridFS không đầy đủ");
+        }
+
+        Document metadata = new Document();
+        if (contentType != null) {
+            metadata.append("_contentType", contentType);
+        }
+        mongoTemplate.getCollection(FILES_COLLECTION).insertOne(
+            new Document("_id", filesId)
+                .append("length", totalSize)
+                .append("chunkSize", CHUNK_SIZE)
+                .append("uploadDate", new Date())
+                .append("filename", fileName)
+                .append("metadata", metadata)
+        );
+        return uploadId;
+    }
+
+    @Override
+    public void abortUpload(String uploadId) {
+        chunks().deleteMany(Filters.eq("files_id", new ObjectId(uploadId)));
+    }
+
+    private MongoCollection<Document> chunks() {
+        return mongoTemplate.getCollection(CHUNKS_COLLECTION);
+    }
+}
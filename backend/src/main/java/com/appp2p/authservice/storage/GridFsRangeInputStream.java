@@ -0,0 +1,103 @@
+package com.appp2p.authservice.storage;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.Binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Đọc một đoạn byte [start, start + length) của file GridFS bằng cách truy vấn thẳng
+ * các chunk chứa đoạn đó, không phải đọc rồi bỏ đi phần dữ liệu phía trước.
+ */
+public class GridFsRangeInputStream extends InputStream {
+
+    // Chunks fetched per cursor batch (~1 MB with the default 255 KB chunk size)
+    private static final int CURSOR_BATCH_SIZE = 4;
+
+    private final MongoCursor<Document> cursor;
+    private long remaining;
+    private int expectedN;
+    private int skipInFirstChunk;
+    private byte[] current;
+    private int position;
+
+    public GridFsRangeInputStream(MongoCollection<Document> chunks, Object filesId, int chunkSize,
+                                  long start, long length) {
+        this.remaining = length;
+        if (length <= 0) {
+            this.cursor = null;
+            return;
+        }
+        int firstN = (int) (start / chunkSize);
+        int lastN = (int) ((start + length - 1) / chunkSize);
+        this.expectedN = firstN;
+        this.skipInFirstChunk = (int) (start % chunkSize);
+        this.cursor = chunks.find(Filters.and(
+                Filters.eq("files_id", filesId),
+                Filters.gte("n", firstN),
+                Filters.lte("n", lastN)))
+            .sort(Sorts.ascending("n"))
+            .batchSize(CURSOR_BATCH_SIZE)
+            .iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (current == null || position >= current.length) {
+            nextChunk();
+        }
+        int count = (int) Math.min(Math.min(len, current.length - position), remaining);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : (int) Math.min(current.length - position, remaining);
+    }
+
+    @Override
+    public void close() {
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    private void nextChunk() throws IOException {
+        if (!cursor.hasNext()) {
+            throw new IOException("Thiếu chunk GridFS số " + expectedN);
+        }
+        Document chunk = cursor.next();
+        int n = chunk.getInteger("n");
+        if (n != expectedN) {
+            throw new IOException("Thiếu chunk GridFS số " + expectedN);
+        }
+        current = chunk.get("data", Binary.class).getData();
+        position = skipInFirstChunk;
+        skipInFirstChunk = 0;
+        expectedN++;
+        if (position >= current.length) {
+            throw new IOException("Chunk GridFS số " + n + " ngắn hơn dự kiến");
+        }
+    }
+}
@@ -1,46 +1,132 @@
 package com.appp2p.authservice.util;
 
+import com.appp2p.authservice.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
     
+    private static final String ROLES_CLAIM = "roles";
+    private static final String SECURITY_VERSION_CLAIM = "sv";
+    private static final String ROLE_PREFIX = "ROLE_";
+    
     @Value("${app.jwt.secret}")
     private String secret;
     
     @Value("${app.jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+    
+    // Both are immutable and thread-safe, so they are built once
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // Keyed on the token digest so the cache never holds usable bearer tokens
+    private Cache<String, VerifiedToken> verifiedTokens;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(verifiedCacheSize)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                    return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+                }
+                
+                @Override
+                public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+                
+                @Override
+                public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
     }
     
-    public String extractUsername(String token) {
+    /**
+     * Parse và kiểm tra chữ ký một lần. Token đã kiểm tra được nhớ tới khi hết hạn,
+     * nên các request sau với cùng token không phải tính lại HMAC.
+     *
+     * @throws IllegalArgumentException nếu token sai chữ ký, sai format hoặc đã hết hạn
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+        VerifiedToken verified = parse(token);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+    
+    VerifiedToken parse(String token) {
         try {
-            return extractClaim(token, Claims::getSubject);
-        } catch (Exception e) {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                throw new IllegalArgumentException("Invalid JWT token: missing subject or expiration");
+            }
+            List<?> roles = claims.get(ROLES_CLAIM, List.class);
+            Number securityVersion = claims.get(SECURITY_VERSION_CLAIM, Number.class);
+            return new VerifiedToken(
+                claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant(),
+                roles != null ? roles.stream().map(String::valueOf).toList() : null,
+                securityVersion != null ? securityVersion.longValue() : 0
+            );
+        } catch (JwtException e) {
             throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage(), e);
         }
     }
     
-    public Date extractExpiration(String token) {
+    private static String digest(String token) {
         try {
-            return extractClaim(token, Claims::getExpiration);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage(), e);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
     
+    public String extractUsername(String token) {
+        return verify(token).subject();
+    }
+    
+    public Date extractExpiration(String token) {
+        return Date.from(verify(token).expiresAt());
+    }
+    
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
@@ -59,19 +145,18 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
     
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith(ROLE_PREFIX) ? authority.substring(ROLE_PREFIX.length()) : authority)
+                .toList());
+        if (userDetails instanceof User user) {
+            claims.put(SECURITY_VERSION_CLAIM, user.getSecurityVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
     
@@ -86,14 +171,13 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return verify(token).subject().equals(userDetails.getUsername());
         } catch (Exception e) {
             return false; // Token không hợp lệ
         }
@@ -101,9 +185,9 @@ public class JwtUtil {
     
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
+            verify(token);
+            return true;
+        } catch (IllegalArgumentException e) {
             return false;
         }
     }
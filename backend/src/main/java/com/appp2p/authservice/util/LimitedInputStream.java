@@ -0,0 +1,79 @@
+package com.appp2p.authservice.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Cho đọc tối đa {@code limit} byte; đọc tới byte vượt giới hạn thì ném {@link LimitExceededException}.
+ * Exception là IOException để backend lưu trữ coi đó là lỗi đọc và hủy phần đã ghi (GridFS chỉ abort khi gặp IOException);
+ * phía trên store dùng {@link #isLimitExceeded(Throwable)} để nhận lại nó dù đã bị bọc.
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long bytes) throws LimitExceededException {
+        count += bytes;
+        if (count > limit) {
+            throw new LimitExceededException(limit);
+        }
+    }
+
+    /**
+     * Lỗi có nguyên nhân (trực tiếp hoặc bị bọc) là việc vượt giới hạn của một LimitedInputStream
+     */
+    public static boolean isLimitExceeded(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LimitExceededException(long limit) {
+            super("Stream dài hơn " + limit + " byte");
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.appp2p.authservice.util;
+
+import org.springframework.http.ContentDisposition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Đọc multipart/form-data trực tiếp từ request body theo từng part, không ghi ra file tạm.
+ * Bộ nhớ dùng cố định bằng kích thước buffer, bất kể file lớn đến đâu.
+ */
+public class MultipartStreamReader {
+
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter; // CRLF--boundary
+    private final byte[] buf;
+    private int head;
+    private int tail;
+    private boolean eof;
+    private boolean finished;
+    private PartInputStream current;
+
+    public MultipartStreamReader(InputStream in, String boundary, int bufferSize) {
+        if (boundary == null || boundary.isEmpty()) {
+            throw new IllegalArgumentException("Multipart boundary không hợp lệ");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.buf = new byte[Math.max(bufferSize, MAX_HEADER_SIZE) + delimiter.length * 2];
+        // Pretend the body starts with CRLF so the first boundary matches the same delimiter
+        this.buf[0] = '\r';
+        this.buf[1] = '\n';
+        this.tail = 2;
+        // Anything before the first boundary is preamble and gets skipped
+        this.current = new PartInputStream();
+    }
+
+    /**
+     * Lấy boundary từ header Content-Type, ví dụ: multipart/form-data; boundary=----abc
+     */
+    public static String extractBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("boundary=")) {
+                String value = trimmed.substring("boundary=".length());
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chuyển sang part tiếp theo. Phần còn lại của part hiện tại (nếu chưa đọc hết) sẽ bị bỏ qua.
+     *
+     * @return part tiếp theo, hoặc null nếu đã hết body
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.drain();
+
+        // After the delimiter comes either "--" (closing boundary) or CRLF
+        ensureAvailable(2);
+        if (tail - head >= 2 && buf[head] == '-' && buf[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        String line = readLine(); // Transport padding up to CRLF
+        if (line == null) {
+            throw new IOException("Multipart body kết thúc không đúng định dạng");
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        while ((line = readLine()) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        if (line == null) {
+            throw new IOException("Multipart body kết thúc khi đang đọc header");
+        }
+
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private String readLine() throws IOException {
+        while (true) {
+            for (int i = head; i < tail - 1; i++) {
+                if (buf[i] == '\r' && buf[i + 1] == '\n') {
+                    String line = new String(buf, head, i - head, StandardCharsets.UTF_8);
+                    head = i + 2;
+                    return line;
+                }
+            }
+            if (tail - head >= MAX_HEADER_SIZE) {
+                throw new IOException("Header của multipart part quá lớn");
+            }
+            if (!fill()) {
+                return null;
+            }
+        }
+    }
+
+    private void ensureAvailable(int count) throws IOException {
+        while (tail - head < count && fill()) {
+            // keep reading
+        }
+    }
+
+    /**
+     * Dồn dữ liệu chưa đọc về đầu buffer rồi đọc thêm từ stream gốc.
+     *
+     * @return false nếu stream gốc đã hết
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (head > 0) {
+            System.arraycopy(buf, head, buf, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        if (tail == buf.length) {
+            return true;
+        }
+        int read = in.read(buf, tail, buf.length - tail);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOfDelimiter(int searchEnd) {
+        int last = searchEnd - delimiter.length;
+        outer:
+        for (int i = head; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    public static class Part {
+
+        private final Map<String, String> headers;
+        private final InputStream inputStream;
+        private final ContentDisposition contentDisposition;
+
+        Part(Map<String, String> headers, InputStream inputStream) {
+            this.headers = headers;
+            this.inputStream = inputStream;
+            String disposition = headers.get("content-disposition");
+            this.contentDisposition = disposition != null ? ContentDisposition.parse(disposition) : ContentDisposition.empty();
+        }
+
+        public String getName() {
+            return contentDisposition.getName();
+        }
+
+        public String getFileName() {
+            return contentDisposition.getFilename();
+        }
+
+        public String getContentType() {
+            return headers.get("content-type");
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+    }
+
+    /**
+     * Stream dữ liệu của một part, kết thúc khi gặp delimiter tiếp theo.
+     */
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                // Only scan as far as this read could reach, so small reads stay cheap
+                int searchEnd = (int) Math.min(tail, (long) head + len + delimiter.length - 1);
+                int delimiterIndex = indexOfDelimiter(searchEnd);
+                int available;
+                if (delimiterIndex >= 0) {
+                    available = delimiterIndex - head;
+                    if (available == 0) {
+                        head += delimiter.length;
+                        done = true;
+                        return -1;
+                    }
+                } else {
+                    // Hold back bytes that could be the start of a delimiter split across reads
+                    available = searchEnd - head - (delimiter.length - 1);
+                    if (available <= 0) {
+                        if (!fill()) {
+                            throw new IOException("Multipart body kết thúc trước boundary đóng");
+                        }
+                        continue;
+                    }
+                }
+                int count = Math.min(available, len);
+                System.arraycopy(buf, head, b, off, count);
+                head += count;
+                return count;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+        }
+
+        void drain() throws IOException {
+            byte[] skip = new byte[4096];
+            while (read(skip, 0, skip.length) >= 0) {
+                // discard
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.appp2p.authservice.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tách tên file thành các token để tìm kiếm bằng index multikey thông thường:
+ * "w:" là từ nguyên vẹn, "p:" là tiền tố 1-2 ký tự của từ, "g:" là trigram của cả tên (cho tìm chuỗi con).
+ * Tên được bỏ dấu và viết thường, nên "Ảnh Biển" khớp với "anh bien".
+ */
+public final class SearchTokenizer {
+    
+    public static final int GRAM = 3;
+    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private SearchTokenizer() {}
+    
+    /**
+     * Chuẩn hóa: bỏ dấu, viết thường, mọi ký tự không phải chữ/số thành một dấu cách.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .replace('đ', 'd').replace('Đ', 'D');
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
+    public static List<String> words(String normalized) {
+        List<String> words = new ArrayList<>();
+        for (String word : normalized.split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+    
+    /**
+     * Các token lưu cùng metadata của file.
+     */
+    public static List<String> indexTokens(String fileName) {
+        String normalized = normalize(fileName);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String word : words(normalized)) {
+            tokens.add("w:" + word);
+            for (int length = 1; length < GRAM && length <= word.length(); length++) {
+                tokens.add("p:" + word.substring(0, length));
+            }
+        }
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            tokens.add("g:" + normalized.substring(i, i + GRAM));
+        }
+        return new ArrayList<>(tokens);
+    }
+    
+    /**
+     * Các token mà một file phải có để có thể khớp với {@code term} (một từ đã chuẩn hóa).
+     * Trigram chỉ lọc ứng viên; kết quả vẫn phải được kiểm tra lại trên tên thật.
+     */
+    public static List<String> queryTokens(String term) {
+        if (term.length() < GRAM) {
+            return List.of("p:" + term);
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            tokens.add("g:" + term.substring(i, i + GRAM));
+        }
+        return new ArrayList<>(tokens);
+    }
+}
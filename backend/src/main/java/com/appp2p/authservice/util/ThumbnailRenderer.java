@@ -0,0 +1,128 @@
+package com.appp2p.authservice.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tạo các bản thu nhỏ của một ảnh chỉ với một lần giải mã.
+ * Ảnh gốc được giải mã với subsampling nên một ảnh 12MP không bao giờ nằm trọn trong bộ nhớ.
+ */
+public final class ThumbnailRenderer {
+    
+    // Refuse images that would still be huge after subsampling (decompression bombs)
+    private static final long MAX_DECODED_PIXELS = 50_000_000L;
+    
+    private static final float JPEG_QUALITY = 0.8f;
+    
+    private ThumbnailRenderer() {}
+    
+    public record Rendered(int width, int height, String contentType, byte[] data) {}
+    
+    /**
+     * @param maxSides cạnh dài nhất của từng bản thu nhỏ; ảnh nhỏ hơn sẽ không bị phóng to
+     * @return các bản thu nhỏ theo đúng thứ tự của {@code maxSides}
+     */
+    public static List<Rendered> render(InputStream in, int... maxSides) throws IOException {
+        BufferedImage source = decode(in, Arrays.stream(maxSides).max().orElseThrow());
+        
+        List<Rendered> rendered = new ArrayList<>();
+        for (int maxSide : maxSides) {
+            rendered.add(encode(resize(source, maxSide)));
+        }
+        return rendered;
+    }
+    
+    private static BufferedImage decode(InputStream in, int largestSide) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Định dạng ảnh không được hỗ trợ");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                
+                // Largest step that still leaves at least largestSide pixels on the long edge
+                int subsampling = Math.max(1, Math.max(width, height) / largestSide);
+                long decodedPixels = ((long) width / subsampling) * (height / subsampling);
+                if (decodedPixels > MAX_DECODED_PIXELS) {
+                    throw new IllegalArgumentException("Ảnh quá lớn để tạo thumbnail");
+                }
+                
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    private static BufferedImage resize(BufferedImage source, int maxSide) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        
+        // Halve step by step: a single bilinear pass from far away drops most of the source pixels
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int stepHeight = Math.max(targetHeight, current.getHeight() / 2);
+            if (current != source && stepWidth == current.getWidth() && stepHeight == current.getHeight()) {
+                break;
+            }
+            BufferedImage next = new BufferedImage(stepWidth, stepHeight, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth || current.getHeight() > targetHeight);
+        return current;
+    }
+    
+    private static Rendered encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", out);
+            return new Rendered(image.getWidth(), image.getHeight(), "image/png", out.toByteArray());
+        }
+        
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new Rendered(image.getWidth(), image.getHeight(), "image/jpeg", out.toByteArray());
+    }
+}
@@ -0,0 +1,15 @@
+package com.appp2p.authservice.util;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Kết quả của một lần parse và kiểm tra chữ ký JWT. Bất biến, nên dùng chung được giữa các request.
+ * roles là null với token cấp trước khi có claim này.
+ */
+public record VerifiedToken(String subject, Instant issuedAt, Instant expiresAt, List<String> roles, long securityVersion) {
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
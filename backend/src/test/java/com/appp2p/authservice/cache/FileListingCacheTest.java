@@ -0,0 +1,65 @@
+package com.appp2p.authservice.cache;
+
+import com.appp2p.authservice.dto.FileUploadResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FileListingCacheTest {
+
+    @Test
+    void servesFromCacheUntilInvalidated() {
+        CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+        FileListingCache cache = new FileListingCache(bus, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@x.com", null, () -> listOf(loads.incrementAndGet()));
+        cache.get("a@x.com", null, () -> listOf(loads.incrementAndGet()));
+        cache.get("a@x.com", "IMAGE", () -> listOf(loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+
+        cache.invalidate("a@x.com");
+        cache.get("a@x.com", null, () -> listOf(loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+        verify(bus).publish(FileListingCache.NAME, "a@x.com");
+
+        assertEquals(1, cache.getStats().getHitCount());
+        assertEquals(3, cache.getStats().getMissCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dropsEntriesSignalledByOtherNodes() {
+        CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+        FileListingCache cache = new FileListingCache(bus, 100, 60_000);
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).subscribe(eq(FileListingCache.NAME), listener.capture());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a@x.com", null, () -> listOf(loads.incrementAndGet()));
+        cache.get("b@x.com", null, () -> listOf(loads.incrementAndGet()));
+
+        listener.getValue().accept("a@x.com");
+        cache.get("a@x.com", null, () -> listOf(loads.incrementAndGet()));
+        cache.get("b@x.com", null, () -> listOf(loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+
+        // null means the signal channel was lost: drop everything
+        listener.getValue().accept(null);
+        cache.get("b@x.com", null, () -> listOf(loads.incrementAndGet()));
+        assertEquals(4, loads.get());
+    }
+
+    private static List<FileUploadResponse> listOf(int marker) {
+        FileUploadResponse response = new FileUploadResponse();
+        response.setId(String.valueOf(marker));
+        return List.of(response);
+    }
+}
@@ -0,0 +1,120 @@
+package com.appp2p.authservice.controller;
+
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.service.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class FileControllerRangeTest {
+
+    private static final String ETAG = "\"abc123\"";
+    private static final byte[] CONTENT = new byte[100];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileMetadata metadata = new FileMetadata("f.bin", "f.bin", "application/octet-stream", CONTENT.length, "blob", "a@x.com", "DOCUMENT");
+        FileService fileService = mock(FileService.class);
+        when(fileService.getFileMetadata("f1")).thenReturn(metadata);
+        when(fileService.getETag(metadata)).thenReturn(ETAG);
+        when(fileService.getLastModified(metadata)).thenReturn(1_700_000_000_000L);
+        when(fileService.openRange(eq(metadata), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int start = Math.toIntExact(invocation.getArgument(1, Long.class));
+            int length = Math.toIntExact(invocation.getArgument(2, Long.class));
+            return new ByteArrayInputStream(CONTENT, start, length);
+        });
+
+        FileController controller = new FileController();
+        ReflectionTestUtils.setField(controller, "fileService", fileService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        MockHttpServletResponse response = download(get("/files/download/f1").header(HttpHeaders.RANGE, "bytes=10-19"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    void servesSuffixRange() throws Exception {
+        MockHttpServletResponse response = download(get("/files/download/f1").header(HttpHeaders.RANGE, "bytes=-5"));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 95-99/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(CONTENT, 95, 100), response.getContentAsByteArray());
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = download(get("/files/download/f1").header(HttpHeaders.RANGE, "bytes=200-300"));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void servesMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletResponse response = download(get("/files/download/f1").header(HttpHeaders.RANGE, "bytes=0-1,10-11"));
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges"), response.getContentType());
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(Long.parseLong(response.getHeader(HttpHeaders.CONTENT_LENGTH)), body.length);
+
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        assertTrue(text.contains("Content-Range: bytes 0-1/100\r\n\r\n" + new String(new byte[] {0, 1}, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.contains("Content-Range: bytes 10-11/100\r\n\r\n" + new String(new byte[] {10, 11}, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletResponse response = download(get("/files/download/f1")
+            .header(HttpHeaders.RANGE, "bytes=10-19")
+            .header(HttpHeaders.IF_RANGE, "\"stale\""));
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request.principal(
+            new UsernamePasswordAuthenticationToken("a@x.com", null, List.of()))).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            // Bodies are StreamingResponseBody, written on an async dispatch
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse();
+    }
+}
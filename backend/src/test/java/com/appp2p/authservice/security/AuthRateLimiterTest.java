@@ -0,0 +1,58 @@
+package com.appp2p.authservice.security;
+
+import com.appp2p.authservice.dto.RateLimitStatsResponse;
+import com.appp2p.authservice.exception.RateLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AuthRateLimiter limiter = new AuthRateLimiter(now::get);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "windowMillis", 60000L);
+        ReflectionTestUtils.setField(limiter, "idleMillis", 600000L);
+        ReflectionTestUtils.setField(limiter, "maxBuckets", 100000L);
+        ReflectionTestUtils.setField(limiter, "loginPerIp", 3);
+        ReflectionTestUtils.setField(limiter, "loginPerEmail", 2);
+        limiter.init();
+    }
+
+    @Test
+    void rejectsEmailOverLimitAndRefillsOverWindow() {
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.1", "a@example.com");
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.2", "A@example.com ");
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+            () -> limiter.check(AuthRateLimiter.LOGIN, "10.0.0.3", "a@example.com"));
+        assertEquals(30, e.getRetryAfterSeconds());
+
+        // One token per 30 s
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.3", "a@example.com");
+    }
+
+    @Test
+    void rejectsIpOverLimitAcrossEmails() {
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.1", "a@example.com");
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.1", "b@example.com");
+        limiter.check(AuthRateLimiter.LOGIN, "10.0.0.1", "c@example.com");
+
+        assertThrows(RateLimitExceededException.class,
+            () -> limiter.check(AuthRateLimiter.LOGIN, "10.0.0.1", "d@example.com"));
+
+        RateLimitStatsResponse stats = limiter.getStats().get(0);
+        assertEquals(AuthRateLimiter.LOGIN, stats.getEndpoint());
+        assertEquals(3, stats.getAllowed());
+        assertEquals(1, stats.getRejectedByIp());
+    }
+}
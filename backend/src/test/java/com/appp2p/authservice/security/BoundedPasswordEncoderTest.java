@@ -0,0 +1,63 @@
+package com.appp2p.authservice.security;
+
+import com.appp2p.authservice.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final ThreadPoolTaskExecutor executor = newExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void encodesAndMatchesOnPool() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, executor, 5000);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+        assertTrue(new BoundedPasswordEncoder(5, executor, 5000).upgradeEncoding(hash));
+    }
+
+    @Test
+    void rejectsWhenSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        // Occupy the only thread and the only queue slot
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, executor, 5000);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("secret"));
+        release.countDown();
+    }
+
+    private static ThreadPoolTaskExecutor newExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.appp2p.authservice.service;
+
+import com.appp2p.authservice.model.EmailOutboxMessage;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Test
+    void sendsWholeBatchThroughLocalSmtp() throws Exception {
+        List<EmailOutboxMessage> batch = List.of(outbox("1", "a@example.com"), outbox("2", "b@example.com"));
+
+        Map<String, String> failures = EmailOutboxDispatcher.send(sender(smtp.getSmtp().getPort()), batch);
+
+        assertTrue(failures.isEmpty());
+        MimeMessage[] received = smtp.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Chào mừng", received[0].getSubject());
+        assertEquals("Xin chào", ((String) received[0].getContent()).trim());
+    }
+
+    @Test
+    void reportsEveryMessageWhenServerIsUnreachable() {
+        List<EmailOutboxMessage> batch = List.of(outbox("1", "a@example.com"), outbox("2", "b@example.com"));
+
+        // Nothing listens on this port
+        Map<String, String> failures = EmailOutboxDispatcher.send(sender(smtp.getSmtp().getPort() + 1), batch);
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.containsKey("1"));
+        assertTrue(failures.containsKey("2"));
+    }
+
+    private static EmailOutboxMessage outbox(String id, String to) {
+        EmailOutboxMessage message = new EmailOutboxMessage(to, "Chào mừng", "Xin chào");
+        message.setId(id);
+        return message;
+    }
+
+    private static JavaMailSenderImpl sender(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(port);
+        sender.setDefaultEncoding("UTF-8");
+        sender.getJavaMailProperties().put("mail.smtp.from", "noreply@example.com");
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        return sender;
+    }
+}
@@ -0,0 +1,208 @@
+package com.appp2p.authservice.service;
+
+import com.appp2p.authservice.cache.FileListingCache;
+import com.appp2p.authservice.model.FileMetadata;
+import com.appp2p.authservice.model.StoredBlob;
+import com.appp2p.authservice.repository.FileMetadataRepository;
+import com.appp2p.authservice.storage.BlobStore;
+import com.appp2p.authservice.storage.BlobStoreRegistry;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reference counting of shared blobs; a mistake here deletes content that other files still point at.
+ */
+class FileServiceTest {
+
+    private static final byte[] CONTENT = "hello world".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = sha256(CONTENT);
+
+    private MongoTemplate mongoTemplate;
+    private BlobStore blobStore;
+    private FileService fileService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        blobStore = mock(BlobStore.class);
+        when(blobStore.getName()).thenReturn("gridfs");
+        fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(fileService, "blobStoreRegistry", new BlobStoreRegistry(List.of(blobStore), "gridfs"));
+    }
+
+    @Test
+    void acquireRetriesAfterLosingTheUpsertRace() {
+        StoredBlob winner = blob("winner", 2);
+        when(findAndModify())
+            .thenThrow(new DuplicateKeyException("E11000"))
+            .thenReturn(winner);
+
+        assertSame(winner, fileService.acquireBlob(HASH, "mine", "gridfs", CONTENT.length));
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class), eq(StoredBlob.class));
+    }
+
+    @Test
+    void dropsOwnCopyWhenContentIsAlreadyStored() throws Exception {
+        when(blobStore.store(any(), any(), any())).thenAnswer(invocation -> {
+            invocation.getArgument(0, InputStream.class).readAllBytes();
+            return "new";
+        });
+        when(findAndModify()).thenReturn(blob("existing", 2));
+
+        FileService.StoredContent content = fileService.storeContent(new ByteArrayInputStream(CONTENT), "a.txt", "text/plain", null);
+
+        assertEquals("existing", content.blobId());
+        assertEquals(HASH, content.contentHash());
+        verify(blobStore).delete("new");
+    }
+
+    @Test
+    void declaredHashOfKnownBlobSkipsTheWrite() throws Exception {
+        when(findAndModify()).thenReturn(blob("existing", 2));
+
+        FileService.StoredContent content = fileService.storeContent(
+            new ByteArrayInputStream(CONTENT), "a.txt", "text/plain", HASH.toUpperCase());
+
+        assertEquals("existing", content.blobId());
+        assertEquals(CONTENT.length, content.size());
+        verify(blobStore, never()).store(any(), any(), any());
+    }
+
+    @Test
+    void wrongDeclaredHashReleasesTheReference() throws Exception {
+        // Acquired with refCount 2, released back to 1
+        when(findAndModify()).thenReturn(blob("existing", 2), blob("existing", 1));
+
+        assertThrows(IllegalArgumentException.class, () -> fileService.storeContent(
+            new ByteArrayInputStream("something else".getBytes(StandardCharsets.UTF_8)), "a.txt", "text/plain", HASH));
+
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class), eq(StoredBlob.class));
+        verify(blobStore, never()).store(any(), any(), any());
+        verify(blobStore, never()).delete(any());
+    }
+
+    @Test
+    void releaseKeepsBlobWhileStillReferenced() {
+        when(findAndModify()).thenReturn(blob("shared", 1));
+
+        fileService.releaseBlob(file("shared"));
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(StoredBlob.class));
+        verify(blobStore, never()).delete(any());
+    }
+
+    @Test
+    void releaseDeletesBlobWhenLastReferenceGoes() {
+        when(findAndModify()).thenReturn(blob("shared", 0));
+        when(mongoTemplate.remove(any(Query.class), eq(StoredBlob.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        fileService.releaseBlob(file("shared"));
+
+        verify(blobStore).delete("shared");
+    }
+
+    @Test
+    void releaseKeepsBlobReacquiredBeforeRemoval() {
+        when(findAndModify()).thenReturn(blob("shared", 0));
+        // The refCount <= 0 condition no longer matched
+        when(mongoTemplate.remove(any(Query.class), eq(StoredBlob.class))).thenReturn(DeleteResult.acknowledged(0));
+
+        fileService.releaseBlob(file("shared"));
+
+        verify(blobStore, never()).delete(any());
+    }
+
+    @Test
+    void insertAllReportsOnlyRejectedDocuments() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(new BulkOperationException("partial", new MongoBulkWriteException(
+            BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+            List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+            null, new ServerAddress(), Set.of())));
+
+        Map<Integer, String> rejected = fileService.insertAll(List.of(file("a"), file("b"), file("c")));
+
+        assertEquals(Map.of(1, "E11000 duplicate key"), rejected);
+    }
+
+    @Test
+    void secondDeleteOfSameFileReleasesNothing() {
+        ReflectionTestUtils.setField(fileService, "fileMetadataRepository", mock(FileMetadataRepository.class));
+        ReflectionTestUtils.setField(fileService, "storageUsageService", mock(StorageUsageService.class));
+        ReflectionTestUtils.setField(fileService, "changeSequenceService", mock(ChangeSequenceService.class));
+        ReflectionTestUtils.setField(fileService, "thumbnailService", mock(ThumbnailService.class));
+        ReflectionTestUtils.setField(fileService, "fileListingCache", mock(FileListingCache.class));
+        // Both requests passed any earlier check; only one of them removes the metadata
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(FileMetadata.class))).thenReturn(file("shared"), (FileMetadata) null);
+        when(findAndModify()).thenReturn(blob("shared", 1));
+
+        fileService.deleteFile("f1", "a@x.com");
+        assertThrows(IllegalArgumentException.class, () -> fileService.deleteFile("f1", "a@x.com"));
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class), eq(StoredBlob.class));
+        verify(blobStore, never()).delete(any());
+    }
+
+    private StoredBlob findAndModify() {
+        return mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class), eq(StoredBlob.class));
+    }
+
+    private static StoredBlob blob(String blobId, long refCount) {
+        StoredBlob blob = new StoredBlob();
+        blob.setContentHash(HASH);
+        blob.setGridFsId(blobId);
+        blob.setStorageBackend("gridfs");
+        blob.setSize(CONTENT.length);
+        blob.setRefCount(refCount);
+        return blob;
+    }
+
+    private static FileMetadata file(String blobId) {
+        FileMetadata metadata = new FileMetadata("a.txt", "a.txt", "text/plain", CONTENT.length, blobId, "a@x.com", "DOCUMENT");
+        metadata.setStorageBackend("gridfs");
+        metadata.setContentHash(HASH);
+        return metadata;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
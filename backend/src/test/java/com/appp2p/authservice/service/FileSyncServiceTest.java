@@ -0,0 +1,41 @@
+package com.appp2p.authservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSyncServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final LocalDateTime SETTLED_BEFORE = NOW.minusSeconds(5);
+
+    @Test
+    void advancesOverContiguousChanges() {
+        List<FileSyncService.Change> changes = List.of(change(11, NOW), change(12, NOW), change(13, NOW));
+
+        assertEquals(13, FileSyncService.settledCursor(10, changes, SETTLED_BEFORE));
+    }
+
+    @Test
+    void stopsBeforeGapFollowedByRecentChange() {
+        // 12 may still be in flight
+        List<FileSyncService.Change> changes = List.of(change(11, NOW), change(13, NOW));
+
+        assertEquals(11, FileSyncService.settledCursor(10, changes, SETTLED_BEFORE));
+    }
+
+    @Test
+    void skipsGapOnceSettled() {
+        // 12 was overwritten or failed long ago
+        List<FileSyncService.Change> changes = List.of(change(11, NOW.minusMinutes(1)), change(13, NOW.minusMinutes(1)), change(15, NOW));
+
+        assertEquals(13, FileSyncService.settledCursor(10, changes, SETTLED_BEFORE));
+    }
+
+    private static FileSyncService.Change change(long seq, LocalDateTime changedAt) {
+        return new FileSyncService.Change(seq, changedAt, null, "id" + seq);
+    }
+}
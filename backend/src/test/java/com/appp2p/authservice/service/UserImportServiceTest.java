@@ -0,0 +1,25 @@
+package com.appp2p.authservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportServiceTest {
+
+    @Test
+    void splitsPlainFields() {
+        assertEquals(List.of("a@b.com", "secret", "", "Nguyen"), UserImportService.parseCsvLine("a@b.com,secret,,Nguyen"));
+    }
+
+    @Test
+    void keepsCommasAndQuotesInsideQuotedFields() {
+        assertEquals(List.of("a@b.com", "pa,ss\"word", "An"), UserImportService.parseCsvLine("a@b.com,\"pa,ss\"\"word\",An"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() {
+        assertThrows(IllegalArgumentException.class, () -> UserImportService.parseCsvLine("a@b.com,\"secret"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.appp2p.authservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesBlobAndReadsRanges() throws IOException {
+        FileSystemBlobStore store = new FileSystemBlobStore(root.toString());
+        byte[] content = randomBytes(3_000_000);
+
+        String blobId = store.store(new ByteArrayInputStream(content), "a.bin", "application/octet-stream");
+
+        assertTrue(store.exists(blobId));
+        assertEquals(content.length, Files.size(store.resolveLocalPath(blobId).orElseThrow()));
+        try (InputStream in = store.openRange(blobId, 1_000_000, 5)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 1_000_000, 1_000_005), in.readAllBytes());
+        }
+        // transferTo goes through FileChannel.transferTo
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = store.openRange(blobId, 10, content.length - 10)) {
+            assertEquals(content.length - 10, in.transferTo(out));
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, 10, content.length), out.toByteArray());
+
+        store.delete(blobId);
+        assertFalse(store.exists(blobId));
+    }
+
+    @Test
+    void assemblesPartsWrittenOutOfOrder() throws IOException {
+        FileSystemBlobStore store = new FileSystemBlobStore(root.toString());
+        int partSize = store.getUploadPartAlignment();
+        byte[] content = randomBytes(partSize * 2 + 123);
+
+        String uploadId = store.beginUpload(content.length);
+        store.writeUploadPart(uploadId, 2L * partSize, new ByteArrayInputStream(content, 2 * partSize, 123), 123);
+        store.writeUploadPart(uploadId, 0, new ByteArrayInputStream(content, 0, partSize), partSize);
+        store.writeUploadPart(uploadId, partSize, new ByteArrayInputStream(content, partSize, partSize), partSize);
+        assertFalse(store.exists(uploadId));
+
+        String blobId = store.completeUpload(uploadId, content.length, "a.bin", null);
+
+        try (InputStream in = store.openRange(blobId, 0, content.length)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsIdsThatAreNotObjectIds() {
+        FileSystemBlobStore store = new FileSystemBlobStore(root.toString());
+        assertThrows(IllegalArgumentException.class, () -> store.openRange("../../etc/passwd", 0, 1));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
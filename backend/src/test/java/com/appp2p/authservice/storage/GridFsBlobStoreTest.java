@@ -0,0 +1,47 @@
+package com.appp2p.authservice.storage;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsObject;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GridFsBlobStoreTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedStoreDeletesItsChunks() {
+        GridFsTemplate gridFsTemplate = mock(GridFsTemplate.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> chunks = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("fs.chunks")).thenReturn(chunks);
+        // What the driver throws for a stream failing with something other than an IOException
+        when(gridFsTemplate.store(any(GridFsObject.class))).thenThrow(new MongoGridFSException("Unexpected Exception when reading GridFS"));
+
+        GridFsBlobStore store = new GridFsBlobStore();
+        ReflectionTestUtils.setField(store, "gridFsTemplate", gridFsTemplate);
+        ReflectionTestUtils.setField(store, "mongoTemplate", mongoTemplate);
+
+        assertThrows(MongoGridFSException.class, () -> store.store(new ByteArrayInputStream(new byte[10]), "a.bin", "application/octet-stream"));
+
+        ArgumentCaptor<GridFsObject<ObjectId, InputStream>> upload = ArgumentCaptor.forClass(GridFsObject.class);
+        verify(gridFsTemplate).store(upload.capture());
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(chunks).deleteMany(filter.capture());
+        assertEquals(Filters.eq("files_id", upload.getValue().getFileId()), filter.getValue());
+    }
+}
@@ -0,0 +1,67 @@
+package com.appp2p.authservice.util;
+
+import com.appp2p.authservice.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil("mySecretKey123456789012345678901234567890", 60000L);
+    }
+
+    @Test
+    void verifiesOnceAndReusesResult() {
+        String token = jwtUtil.generateToken("user@example.com");
+
+        VerifiedToken first = jwtUtil.verify(token);
+
+        assertEquals("user@example.com", first.subject());
+        assertSame(first, jwtUtil.verify(token));
+    }
+
+    @Test
+    void carriesRolesAndSecurityVersion() {
+        User user = new User("admin@example.com", "hash");
+        user.setRoles(Set.of(User.Role.ADMIN));
+        user.setSecurityVersion(3);
+
+        VerifiedToken verified = jwtUtil.verify(jwtUtil.generateToken(user));
+
+        assertEquals(List.of("ADMIN"), verified.roles());
+        assertEquals(3, verified.securityVersion());
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String foreign = newJwtUtil("anotherSecretKey12345678901234567890123456", 60000L).generateToken("user@example.com");
+
+        assertThrows(IllegalArgumentException.class, () -> jwtUtil.verify(foreign));
+        assertFalse(jwtUtil.validateToken(foreign));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String expired = newJwtUtil("mySecretKey123456789012345678901234567890", -1000L).generateToken("user@example.com");
+
+        assertThrows(IllegalArgumentException.class, () -> jwtUtil.verify(expired));
+    }
+
+    private static JwtUtil newJwtUtil(String secret, long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", secret);
+        ReflectionTestUtils.setField(util, "expiration", expiration);
+        ReflectionTestUtils.setField(util, "verifiedCacheSize", 100L);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,36 @@
+package com.appp2p.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitedInputStreamTest {
+
+    @Test
+    void readsStreamThatFitsExactly() throws IOException {
+        InputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[100]), 100);
+
+        assertEquals(100, in.readAllBytes().length);
+    }
+
+    @Test
+    void failsOnFirstReadPastTheLimit() throws IOException {
+        InputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[101]), 100);
+
+        assertEquals(60, in.read(new byte[60]));
+        assertThrows(LimitedInputStream.LimitExceededException.class, () -> in.read(new byte[60]));
+    }
+
+    @Test
+    void recognisesTheOverflowWhenWrapped() {
+        IOException overflow = new LimitedInputStream.LimitExceededException(100);
+
+        assertTrue(LimitedInputStream.isLimitExceeded(new RuntimeException(new UncheckedIOException(overflow))));
+        assertFalse(LimitedInputStream.isLimitExceeded(new IOException("connection reset")));
+    }
+}
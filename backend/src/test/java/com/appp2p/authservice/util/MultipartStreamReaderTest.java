@@ -0,0 +1,101 @@
+package com.appp2p.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void readsFilePartSplitAcrossSmallBuffers() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(42).nextBytes(content);
+        byte[] body = body(content);
+
+        // Tiny reads from the source force the delimiter to straddle buffer refills
+        MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body, 7), BOUNDARY, 16);
+
+        MultipartStreamReader.Part field = reader.nextPart();
+        assertEquals("description", field.getName());
+        assertNull(field.getFileName());
+        assertEquals("holiday", new String(field.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        MultipartStreamReader.Part file = reader.nextPart();
+        assertEquals("file", file.getName());
+        assertEquals("ảnh biển.jpg", file.getFileName());
+        assertEquals("image/jpeg", file.getContentType());
+        assertArrayEquals(content, file.getInputStream().readAllBytes());
+
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void skipsUnreadPartsAndPreamble() throws IOException {
+        byte[] body = ("preamble text\r\n" + new String(body("abc".getBytes(StandardCharsets.UTF_8)), StandardCharsets.ISO_8859_1))
+            .getBytes(StandardCharsets.ISO_8859_1);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY, 8192);
+
+        assertEquals("description", reader.nextPart().getName());
+        MultipartStreamReader.Part file = reader.nextPart();
+        assertEquals("abc", new String(file.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void failsOnTruncatedBody() throws IOException {
+        byte[] body = body(new byte[1000]);
+        byte[] truncated = java.util.Arrays.copyOf(body, body.length - 60);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(truncated), BOUNDARY, 64);
+
+        reader.nextPart();
+        InputStream file = reader.nextPart().getInputStream();
+        assertThrows(IOException.class, file::readAllBytes);
+    }
+
+    @Test
+    void extractsBoundaryFromContentType() {
+        assertEquals("abc", MultipartStreamReader.extractBoundary("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartStreamReader.extractBoundary("multipart/form-data; boundary=\"a b\""));
+        assertNull(MultipartStreamReader.extractBoundary("application/json"));
+    }
+
+    private static byte[] body(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+            + "holiday\r\n"
+            + "--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"ảnh biển.jpg\"\r\n"
+            + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(content);
+        out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Trả về dữ liệu theo từng mẩu nhỏ, giống một kết nối mạng chậm.
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+
+        private final int maxRead;
+
+        TrickleInputStream(byte[] data, int maxRead) {
+            super(data);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
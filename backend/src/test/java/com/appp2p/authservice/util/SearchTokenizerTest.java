@@ -0,0 +1,33 @@
+package com.appp2p.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTokenizerTest {
+
+    @Test
+    void normalizesVietnameseAndSeparators() {
+        assertEquals("anh bien da nang 2024 jpg", SearchTokenizer.normalize("Ảnh_Biển-Đà Nẵng (2024).JPG"));
+    }
+
+    @Test
+    void indexedNameContainsEveryQueryToken() {
+        List<String> tokens = SearchTokenizer.indexTokens("Báo cáo quý 3.docx");
+
+        // Word prefix, short prefix and substring queries
+        assertTrue(tokens.containsAll(SearchTokenizer.queryTokens("bao")));
+        assertTrue(tokens.containsAll(SearchTokenizer.queryTokens("qu")));
+        assertTrue(tokens.containsAll(SearchTokenizer.queryTokens("docx")));
+        assertTrue(tokens.containsAll(SearchTokenizer.queryTokens("ocx")));
+        assertFalse(tokens.containsAll(SearchTokenizer.queryTokens("hop")));
+    }
+
+    @Test
+    void shortTermsUsePrefixTokens() {
+        assertEquals(List.of("p:ba"), SearchTokenizer.queryTokens("ba"));
+        assertEquals(List.of("g:bao", "g:aoc"), SearchTokenizer.queryTokens("baoc"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.appp2p.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailRendererTest {
+
+    @Test
+    void rendersEveryVariantKeepingAspectRatio() throws IOException {
+        byte[] jpeg = image(3000, 2000, BufferedImage.TYPE_INT_RGB, "jpg");
+
+        List<ThumbnailRenderer.Rendered> rendered = ThumbnailRenderer.render(new ByteArrayInputStream(jpeg), 256, 1024);
+
+        assertEquals(2, rendered.size());
+        assertEquals(256, rendered.get(0).width());
+        assertEquals(171, rendered.get(0).height());
+        assertEquals(1024, rendered.get(1).width());
+        assertEquals(683, rendered.get(1).height());
+        assertEquals("image/jpeg", rendered.get(0).contentType());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(rendered.get(1).data()));
+        assertEquals(1024, decoded.getWidth());
+    }
+
+    @Test
+    void keepsTransparencyAndNeverUpscales() throws IOException {
+        byte[] png = image(100, 50, BufferedImage.TYPE_INT_ARGB, "png");
+
+        ThumbnailRenderer.Rendered rendered = ThumbnailRenderer.render(new ByteArrayInputStream(png), 256).get(0);
+
+        assertEquals(100, rendered.width());
+        assertEquals(50, rendered.height());
+        assertEquals("image/png", rendered.contentType());
+    }
+
+    @Test
+    void rejectsNonImages() {
+        byte[] text = "not an image".getBytes();
+        assertThrows(IllegalArgumentException.class,
+            () -> ThumbnailRenderer.render(new ByteArrayInputStream(text), 256));
+    }
+
+    private static byte[] image(int width, int height, int type, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}